@@ -0,0 +1,39 @@
+package com.blog.auth.config;
+
+import com.blog.auth.utils.BCryptPasswordEncoder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * BCrypt配置，包括计算强度和专用线程池
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.bcrypt")
+public class BCryptProperty {
+    // 固定的计算强度，0表示启动时按耗时预算自动选择
+    private int cost = 0;
+    // 单次计算的耗时预算，单位是毫秒
+    private long latencyBudget = 250;
+    private int minCost = 10;
+    private int maxCost = 14;
+    // 线程数，0表示按CPU核数
+    private int threads = 0;
+    // 线程池排队的最大任务数
+    private int queueCapacity = 64;
+    // 调用方最多等待的时间，单位是毫秒
+    private long timeout = 3000;
+
+    /**
+     * 获取新密码使用的计算强度
+     *
+     * @return 计算强度
+     */
+    public int resolveCost() {
+        if (cost > 0) {
+            return cost;
+        }
+        return BCryptPasswordEncoder.calibrateCost(latencyBudget, minCost, maxCost);
+    }
+}
@@ -3,39 +3,50 @@ package com.blog.auth.controller;
 
 import com.blog.auth.enums.LoginRelationConstants;
 import com.blog.auth.service.AuthService;
-import com.blog.auth.utils.JwtUtil;
+import com.blog.auth.service.CaptchaStore;
+import com.blog.auth.utils.CaptchaEncoder;
+import com.blog.auth.utils.CaptchaPool;
 import com.blog.common.domain.dto.UserDTO;
 
 import com.blog.common.domain.vo.Result;
 import com.blog.common.domain.vo.UserVo;
-import com.blog.common.utils.RedisUtil;
-import com.google.code.kaptcha.Producer;
+import com.blog.common.enums.ErrorCode;
+import com.blog.common.exception.ValidateException;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import javax.imageio.ImageIO;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/auth")
 @Api(value = "认证服务")
 public class AuthController {
+    private static final String IMAGE_WEBP_VALUE = "image/webp";
+    private static final Pattern CAPTCHA_NONCE_PATTERN = Pattern.compile("[A-Za-z0-9_-]{16,64}");
 
     @Autowired
     private AuthService authService;
     @Autowired
-    private Producer kaptchaProducer;
+    private CaptchaPool captchaPool;
     @Autowired
-    private RedisUtil redisUtil;
+    private CaptchaStore captchaStore;
+    // 验证码有效期，单位是秒，CDN缓存时间与之一致
+    @Value("${auth.captcha.expire:60}")
+    private long captchaExpire;
+
     @PostMapping("/login")
     @ApiOperation(value = "用户登录")
     public Result Login(@Valid @RequestBody UserDTO userDTO, HttpServletRequest request) {
@@ -58,14 +69,14 @@ public class AuthController {
 
     /**
      * 生成并返回验证码图片
-     * 此方法通过GET请求处理，生成一个JPEG图像格式的验证码
-     * 它确保验证码图片不会被缓存，并将验证码文本存储在会话中
+     * 此方法通过GET请求处理，默认返回JPEG图像格式的验证码
+     * 它确保验证码图片不会被缓存，并将验证码令牌通过响应头返回
      *
-     * @param request HTTP请求对象，用于获取会话
+     * @param request HTTP请求对象，用于读取Accept头
      * @param response HTTP响应对象，用于设置响应头和输出流
      * @throws IOException 如果在处理输出流时发生I/O错误
      */
-    @GetMapping(value = "/captcha", produces = MediaType.IMAGE_JPEG_VALUE)
+    @GetMapping(value = "/captcha", produces = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, IMAGE_WEBP_VALUE})
     @ApiOperation(value = "获取验证码图片")
     public void getCaptchaImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 禁止缓存验证码图片，以防止安全问题
@@ -73,33 +84,83 @@ public class AuthController {
         response.setHeader("Cache-Control", "no-store, no-cache, must-revalidate");
         response.addHeader("Cache-Control", "post-check=0, pre-check=0");
         response.setHeader("Pragma", "no-cache");
+        writeCaptcha(request, response);
+    }
 
-        // 设置响应内容类型为JPEG图像
-        response.setContentType("image/jpeg");
+    /**
+     * 按一次性地址获取验证码图片
+     * 地址中的nonce由前端每次随机生成，同一地址只对应一张验证码，
+     * 因此响应可以被CDN按地址缓存到验证码过期为止；验证码令牌随图片一起缓存在响应头中
+     *
+     * @param nonce 前端生成的随机串
+     * @param request HTTP请求对象，用于读取Accept头
+     * @param response HTTP响应对象，用于设置响应头和输出流
+     * @throws IOException 如果在处理输出流时发生I/O错误
+     */
+    @GetMapping(value = "/captcha/{nonce}", produces = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, IMAGE_WEBP_VALUE})
+    @ApiOperation(value = "按一次性地址获取验证码图片")
+    public void getCaptchaImage(@PathVariable String nonce, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        // nonce过短时不同客户端可能拿到CDN缓存的同一张验证码
+        if (!CAPTCHA_NONCE_PATTERN.matcher(nonce).matches()) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_ERROR);
+        }
+        response.setHeader("Cache-Control", "public, max-age=" + captchaExpire + ", immutable");
+        // 图片格式由Accept决定，CDN需要按Accept区分缓存
+        response.setHeader("Vary", "Accept");
+        writeCaptcha(request, response);
+    }
 
-        // 创建验证码文本
-        String capText = kaptchaProducer.createText();
-        // 创建验证码令牌
-        String capTextKey = JwtUtil.generateToken(capText, 60 * 1000L);
-        // 将JWT作为参数返回给前端
+    private void writeCaptcha(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 从预渲染池中取出验证码，客户端接受更小的格式时按需重新编码
+        CaptchaPool.Captcha captcha = captchaPool.take(preferredFormat(request));
+        // 签发验证码令牌，并作为响应头返回给前端
+        String capTextKey = captchaStore.issue(captcha.getText());
         response.setHeader(LoginRelationConstants.CAPTCHA_HEADER, capTextKey);
-        // 存储到redis中
-        redisUtil.setStringCacheValueWithExpiration(capTextKey, capText, 60);
-
-        // 根据验证码文本创建验证码图片
-        BufferedImage bi = kaptchaProducer.createImage(capText);
+        response.setContentType(captcha.getFormat().getContentType());
 
-        // 获取响应输出流以写入图像数据
+        // 图片已经编码好，设置长度后一次写出
+        byte[] image = captcha.getImage();
+        response.setContentLength(image.length);
         ServletOutputStream out = response.getOutputStream();
-
-        // 将生成的验证码图片以JPEG格式写入输出流
-        ImageIO.write(bi, "jpg", out);
-        // 尝试刷新输出流以确保所有数据都被写入，最后关闭输出流
         try {
+            out.write(image);
             out.flush();
         } finally {
             out.close();
         }
     }
-    
+
+    /**
+     * 根据Accept头选择验证码格式
+     * 只有客户端明确列出PNG或WebP时才使用，通配符一律按JPEG处理，保持与旧前端的兼容
+     *
+     * @param request HTTP请求对象
+     * @return 验证码图片格式
+     */
+    private static CaptchaEncoder.Format preferredFormat(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isEmpty()) {
+            return CaptchaEncoder.Format.JPEG;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return CaptchaEncoder.Format.JPEG;
+        }
+        MediaType.sortByQualityValue(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype() || mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            String type = mediaType.getType() + "/" + mediaType.getSubtype();
+            for (CaptchaEncoder.Format format : CaptchaEncoder.Format.values()) {
+                if (format.isAvailable() && format.getContentType().equals(type)) {
+                    return format;
+                }
+            }
+        }
+        return CaptchaEncoder.Format.JPEG;
+    }
 }
@@ -3,7 +3,77 @@ package com.blog.auth.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.blog.common.domain.po.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface AuthMapper extends BaseMapper<User> {
+    // 登录需要的列，不查询创建时间和修改时间；查询结果会写入共享的Redis缓存，因此不包含密码
+    String LOGIN_COLUMNS = "id, username, nick_name, account_status, phone, email, gender, avatar_path";
+
+    /**
+     * 根据主键查询密码密文，只在校验密码时读取，不进入缓存
+     *
+     * @param id 用户ID
+     * @return 密码密文，用户不存在时返回 null
+     */
+    @Select("SELECT password FROM `user` WHERE id = #{id}")
+    String selectPasswordById(@Param("id") Long id);
+
+    /**
+     * 根据主键查询登录需要的用户信息
+     *
+     * @param id 用户ID
+     * @return 用户信息，不存在时返回 null
+     */
+    @Select("SELECT " + LOGIN_COLUMNS + " FROM `user` WHERE id = #{id}")
+    User selectLoginUserById(@Param("id") Long id);
+
+    /**
+     * 根据用户名查询登录需要的用户信息，走uk_username唯一索引
+     *
+     * @param username 用户名
+     * @return 用户信息，不存在时返回 null
+     */
+    @Select("SELECT " + LOGIN_COLUMNS + " FROM `user` WHERE username = #{username} LIMIT 1")
+    User selectLoginUserByUsername(@Param("username") String username);
+
+    /**
+     * 根据手机号查询登录需要的用户信息，走uk_phone唯一索引
+     *
+     * @param phone 手机号
+     * @return 用户信息，不存在时返回 null
+     */
+    @Select("SELECT " + LOGIN_COLUMNS + " FROM `user` WHERE phone = #{phone} LIMIT 1")
+    User selectLoginUserByPhone(@Param("phone") String phone);
+
+    /**
+     * 判断用户名是否已被注册，只读取索引
+     *
+     * @param username 用户名
+     * @return 已存在返回 true
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM `user` WHERE username = #{username})")
+    boolean existsByUsername(@Param("username") String username);
+
+    /**
+     * 判断手机号是否已被注册，只读取索引
+     *
+     * @param phone 手机号
+     * @return 已存在返回 true
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM `user` WHERE phone = #{phone})")
+    boolean existsByPhone(@Param("phone") String phone);
+
+    /**
+     * 按主键游标分页查询用户名和手机号，用于重建布隆过滤器
+     *
+     * @param lastId 上一页最后一个用户ID，第一页传0
+     * @param limit  每页条数
+     * @return 用户列表，只包含id、username、phone
+     */
+    @Select("SELECT id, username, phone FROM `user` WHERE id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<User> selectIdentifiersAfter(@Param("lastId") long lastId, @Param("limit") int limit);
 }
@@ -0,0 +1,29 @@
+package com.blog.auth.service;
+
+import com.blog.common.exception.ValidateException;
+
+/**
+ * 验证码存储
+ * <p>
+ * 负责签发验证码令牌（通过x-captcha-key响应头返回给前端）以及登录时校验验证码，
+ * 通过auth.captcha.mode选择实现：redis（默认）或hmac。
+ */
+public interface CaptchaStore {
+
+    /**
+     * 为验证码答案签发令牌
+     *
+     * @param text 验证码答案
+     * @return 验证码令牌
+     */
+    String issue(String text);
+
+    /**
+     * 校验验证码，每个令牌只能通过一次
+     *
+     * @param captcha    用户输入的验证码
+     * @param captchaKey 验证码令牌
+     * @throws ValidateException 验证码过期或不匹配
+     */
+    void verify(String captcha, String captchaKey);
+}
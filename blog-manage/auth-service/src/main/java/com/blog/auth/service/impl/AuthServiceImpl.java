@@ -1,15 +1,18 @@
 package com.blog.auth.service.impl;
 
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.RandomUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.blog.auth.enums.LoginRelationConstants;
 import com.blog.auth.enums.InputType;
 import com.blog.auth.mapper.AuthMapper;
 import com.blog.auth.service.AuthService;
-import com.blog.auth.utils.BCryptPasswordEncoder;
+import com.blog.auth.service.CaptchaStore;
 import com.blog.auth.utils.JwtUtil;
+import com.blog.auth.utils.LoginRateLimiter;
+import com.blog.auth.utils.NicknameGenerator;
+import com.blog.auth.utils.PasswordHashExecutor;
+import com.blog.auth.utils.UserBloomFilter;
+import com.blog.auth.utils.UserCache;
 import com.blog.auth.utils.ValidatorUtil;
 import com.blog.common.enums.ErrorCode;
 import com.blog.common.exception.UserException;
@@ -23,10 +26,7 @@ import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements AuthService {
@@ -35,20 +35,47 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
     private RedisUtil redisUtil;
     @Autowired
     private AuthMapper authMapper;
+    @Autowired
+    private PasswordHashExecutor passwordHashExecutor;
+    @Autowired
+    private CaptchaStore captchaStore;
+    @Autowired
+    private NicknameGenerator nicknameGenerator;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private UserBloomFilter userBloomFilter;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
     @Override
     public UserVo login(UserDTO userDTO, HttpServletRequest request) {
+        // 先按IP限流并检查账号是否已被锁定，被拒绝的请求不会查询数据库，也不会计算BCrypt
+        loginRateLimiter.check(request, loginAccount(userDTO));
         // 然后检查验证码
         String captchaKey = request.getHeader(LoginRelationConstants.CAPTCHA_HEADER);
         // 1. 检查用户输入是否正确符合格式
         validatorUserLoginInput(userDTO, captchaKey);
 
+        // 验证码已经通过，此后的登录失败才计入账号维度的限流
         User user = getUser(userDTO);
         if (ObjectUtil.isNull(user)) {
-            throw new UserException(ErrorCode.USER_NOT_EXIST);
+            loginRateLimiter.recordFailure(loginAccount(userDTO));
+            throw UserException.of(ErrorCode.USER_NOT_EXIST);
+        }
+        // 用户信息不带密码，密文从独立的缓存命名空间中读取
+        String passwordHash = userCache.getPasswordHash(user.getId());
+        if (passwordHash == null) {
+            loginRateLimiter.recordFailure(loginAccount(userDTO));
+            throw UserException.of(ErrorCode.USER_NOT_EXIST);
         }
         // TODO 还要区分是用户名还是手机号，因为手机号是要验证码的
-        if (!BCryptPasswordEncoder.matches(userDTO.getPassword(), user.getPassword())) {
-            throw new UserException(ErrorCode.USER_PASSWORD_ERROR);
+        if (!passwordHashExecutor.matches(userDTO.getPassword(), passwordHash)) {
+            loginRateLimiter.recordFailure(loginAccount(userDTO));
+            throw UserException.of(ErrorCode.USER_PASSWORD_ERROR);
+        }
+        // 旧密码的计算强度与当前配置不一致时，在后台重新加密
+        if (passwordHashExecutor.needsRehash(passwordHash)) {
+            rehashPassword(user.getId(), passwordHash, userDTO.getPassword());
         }
 
         UserVo userVo = new UserVo();
@@ -71,7 +98,7 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
     private boolean validatorUserLoginInput(UserDTO userDTO, String captchaKey) {
         // 基础参数空校验
         if (ObjectUtil.isNull(userDTO)) {
-            throw new UserException(ErrorCode.ARGUMENT_IS_NULL);
+            throw UserException.of(ErrorCode.ARGUMENT_IS_NULL);
         }
 
         // 根据登录类型进行分支校验
@@ -85,7 +112,7 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
             // 链式校验用户名、密码、验证码
             ValidatorUtil.validateUsername(username);
             ValidatorUtil.validatePassword(password);
-            ValidatorUtil.validateCaptcha(captcha, captchaKey, redisUtil);
+            captchaStore.verify(captcha, captchaKey);
 
         } else if (InputType.PHONE.getType().equals(loginType)) {
             // TODO 手机号登录校验待实现
@@ -95,12 +122,72 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
         return true;
     }
 
+    /**
+     * 获取登录账号，用于按账号限流
+     *
+     * @param userDTO 用户数据传输对象
+     * @return 用户名或手机号，未知的登录方式返回 null
+     */
+    private String loginAccount(UserDTO userDTO) {
+        if (ObjectUtil.isNull(userDTO)) {
+            return null;
+        }
+        InputType inputType = InputType.getLoginType(userDTO.getInputType());
+        if (inputType == InputType.USERNAME) {
+            return userDTO.getUsername();
+        }
+        if (inputType == InputType.PHONE) {
+            return userDTO.getPhone();
+        }
+        return null;
+    }
+
+    /**
+     * 根据登录方式查询用户，每种方式只按对应的唯一索引查询
+     * <p>
+     * 布隆过滤器判定用户一定不存在时直接返回，不再查询缓存和数据库。
+     *
+     * @param userDTO 用户数据传输对象
+     * @return 用户信息，不存在或登录方式未知时返回 null
+     */
     private User getUser(UserDTO userDTO) {
-        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(User::getUsername, userDTO.getUsername())
-                .or()
-                .eq(User::getPhone, userDTO.getPhone());
-        return getOne(queryWrapper);
+        InputType inputType = InputType.getLoginType(userDTO.getInputType());
+        if (inputType == null) {
+            return null;
+        }
+        switch (inputType) {
+            case USERNAME:
+                return userBloomFilter.mightContainUsername(userDTO.getUsername())
+                        ? userCache.getByUsername(userDTO.getUsername()) : null;
+            case PHONE:
+                return userBloomFilter.mightContainPhone(userDTO.getPhone())
+                        ? userCache.getByPhone(userDTO.getPhone()) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按当前计算强度重新加密密码并写回数据库
+     * <p>
+     * 更新条件带上旧密文，期间如果用户修改了密码，这次写回不会覆盖新密码。
+     * 写回成功后只清理密码密文的缓存，用户信息没有变化。
+     *
+     * @param userId       用户ID
+     * @param passwordHash 数据库中的旧密文
+     * @param rawPassword  原始密码
+     */
+    private void rehashPassword(Long userId, String passwordHash, String rawPassword) {
+        passwordHashExecutor.rehashAsync(rawPassword, newPassword -> {
+            boolean updated = lambdaUpdate()
+                    .set(User::getPassword, newPassword)
+                    .eq(User::getId, userId)
+                    .eq(User::getPassword, passwordHash)
+                    .update();
+            if (updated) {
+                userCache.evictPassword(userId);
+            }
+        });
     }
 
     @Override
@@ -115,17 +202,18 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
     }
 
     private void handleUsernameRegistration(UserDTO userDTO) {
-        User user = getUser(userDTO);
-        if (user != null) {
-            throw new UserException(ErrorCode.USER_EXIST);
+        // 布隆过滤器判定一定不存在时跳过查询，并发注册由唯一索引兜底
+        if (userBloomFilter.mightContainUsername(userDTO.getUsername())
+                && authMapper.existsByUsername(userDTO.getUsername())) {
+            throw UserException.of(ErrorCode.USER_EXIST);
         }
         createNewUser(userDTO);
     }
 
     private void handlePhoneRegistration(UserDTO userDTO) {
-        User user = getUser(userDTO);
-        if (user != null) {
-            throw new UserException(ErrorCode.USER_EXIST);
+        if (userBloomFilter.mightContainPhone(userDTO.getPhone())
+                && authMapper.existsByPhone(userDTO.getPhone())) {
+            throw UserException.of(ErrorCode.USER_EXIST);
         }
         // createNewUser(userDTO);
     }
@@ -146,72 +234,19 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
         User user = new User();
         BeanUtils.copyProperties(userDTO, user);
 
-        // 使用BCrypt算法加密原始密码（会覆盖DTO中的原始密码值）
-        user.setPassword(BCryptPasswordEncoder.encode(user.getPassword()));
-        String nickName;
-        // 生成系统唯一的默认昵称
-        do {
-            nickName = generateUniqueNickname();
-        } while (checkNicknameExists(nickName));
-        user.setNickName(nickName);
+        // 使用BCrypt算法加密原始密码（会覆盖DTO中的原始密码值），在专用线程池中计算
+        user.setPassword(passwordHashExecutor.encode(user.getPassword()));
+        // 生成系统唯一的默认昵称，由生成器保证唯一，无需查询数据库
+        user.setNickName(nicknameGenerator.generate());
         // TODO 设置角色、权限
         // 持久化用户实体到数据库
         save(user);
+        userBloomFilter.put(user);
+        // 清除注册前缓存的"用户不存在"
+        userCache.evict(user);
     }
 
 
-    private static final String NICKNAME_PREFIX = "Zw_";
-    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
-    private static final String RANDOM_CHAR_POOL = "0123456789abcdefghijklmnopqrstuvwxyz";
-    private static final int RANDOM_LENGTH = 8;
-    private static final AtomicInteger COUNTER = new AtomicInteger(0);
-    private static final int COUNTER_MAX = 9999;
-
-    /**
-     * 生成唯一的用户昵称字符串
-     *
-     * 本函数通过多组件拼接方式构造全局唯一昵称，组件包含（按顺序）：
-     * 1. 固定前缀：由类常量NICKNAME_PREFIX定义
-     * 2. 高精度时间戳：格式为yyyyMMddHHmmssSSS的17位字符串（精确到豪秒级）
-     * 3. 循环序列号：线程安全的原子计数器，格式化为4位数字（0000-9999循环）
-     * 4. 随机字符后缀：从预设字符池RANDOM_CHAR_POOL中选取指定长度RANDOM_LENGTH的随机字符
-     *
-     * 实现特性：
-     * - 序列号计数器超过COUNTER_MAX（建议9999）时自动归零重置，确保长期运行的稳定性
-     * - 使用String.format("%04d")强制4位数字补零，避免短位数场景
-     * - 通过RandomUtil工具类生成密码学安全的随机字符串
-     *
-     * @return 结构稳定的唯一昵称字符串，总长度计算公式：
-     *         NICKNAME_PREFIX长度 + 14（时间戳） + 4（序列号） + RANDOM_LENGTH（随机串）
-     */
-    private String generateUniqueNickname() {
-        // 初始化精确容量的StringBuilder（总长度31 = 前缀长度 + 时间戳14 + 序列号4 + 随机5）
-
-        /* 组件构建流程（总长度计算示例）：
-         * - NICKNAME_PREFIX: 假设长度8（如"User_"）
-         * - 时间戳: 固定14位（yyyyMMddHHmmss）
-         * - 序列号: 固定4位数字
-         * - 随机字符串: 假设长度5
-         */
-
-        return NICKNAME_PREFIX +
-                LocalDateTime.now().format(TIMESTAMP_FORMATTER) +  // 时间戳组件（代码中实际精确到秒）
-                String.format("%04d", COUNTER.getAndUpdate(prev ->  // 原子操作保证多线程环境序列号唯一性
-                        (prev >= COUNTER_MAX) ? 0 : prev + 1)) +   // 循环计数逻辑，避免数值溢出
-                RandomUtil.randomString(RANDOM_CHAR_POOL, RANDOM_LENGTH);
-    }
-
-    /**
-     * 检查昵称是否存在于数据库中
-     * @param nickname 随机生成的昵称
-     * @return boolean 存在返回true，不存在返回false
-     */
-    private boolean checkNicknameExists(String nickname) {
-        return authMapper.exists(new LambdaQueryWrapper<User>()
-                .eq(User::getNickName, nickname));
-    }
-
     /**
      * 验证用户注册输入参数合法性
      *
@@ -221,7 +256,7 @@ public class AuthServiceImpl extends ServiceImpl<AuthMapper, User> implements Au
      */
     private boolean validateUserRegisterInput(UserDTO userDTO) {
         if (ObjectUtil.isNull(userDTO)) {
-            throw new UserException(ErrorCode.ARGUMENT_IS_NULL);
+            throw UserException.of(ErrorCode.ARGUMENT_IS_NULL);
         }
 
         // 根据输入类型进行分支验证
@@ -0,0 +1,155 @@
+package com.blog.auth.service.impl;
+
+import com.blog.auth.service.CaptchaStore;
+import com.blog.common.enums.ErrorCode;
+import com.blog.common.exception.ValidateException;
+import com.blog.common.utils.RedisUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无状态的验证码存储
+ * <p>
+ * 令牌本身携带随机数、过期时间和对小写答案的HMAC，校验时只需重新计算HMAC，不再读写Redis。
+ * 令牌格式为 Base64URL(随机数8字节 | 过期时间4字节（秒） | HMAC-SHA256截断12字节)，共32个字符。
+ * <p>
+ * 为防止同一个令牌被重复使用，校验通过的随机数会记录到已使用集合中直到令牌过期，
+ * auth.captcha.replay-store=local 时记录在本机内存（单实例部署），redis 时通过SET NX记录（多实例部署）。
+ */
+@Component
+@ConditionalOnProperty(name = "auth.captcha.mode", havingValue = "hmac")
+public class HmacCaptchaStore implements CaptchaStore {
+    private static final String ALGORITHM = "HmacSHA256";
+    // 旧版本内置的默认密钥已经公开，配置成该值时同样拒绝启动
+    private static final String LEGACY_DEFAULT_SECRET = "blog-captcha-secret";
+    private static final String REPLAY_STORE_REDIS = "redis";
+    private static final String USED_NONCE_KEY_PREFIX = "captcha:used:";
+    private static final int NONCE_LENGTH = 8;
+    private static final int EXPIRY_LENGTH = 4;
+    private static final int MAC_LENGTH = 12;
+    private static final int TOKEN_LENGTH = NONCE_LENGTH + EXPIRY_LENGTH + MAC_LENGTH;
+
+    private final SecureRandom random = new SecureRandom();
+    // 已经初始化好密钥的Mac，每次计算时克隆一份
+    private final Mac prototype;
+    // 验证码有效期，单位是秒
+    private final long expire;
+    private final RedisUtil redisUtil;
+    // 本机记录的已使用随机数，使用Redis记录时为 null
+    private final Cache<Long, Boolean> usedNonces;
+
+    /**
+     * 密钥公开后，只凭令牌就能离线穷举出4~5位的验证码答案，因此不提供默认密钥，未配置时启动失败
+     *
+     * @throws IllegalStateException 未配置auth.captcha.secret
+     */
+    public HmacCaptchaStore(@Value("${auth.captcha.secret:}") String secret,
+                            @Value("${auth.captcha.expire:60}") long expire,
+                            @Value("${auth.captcha.replay-store:local}") String replayStore,
+                            @Value("${auth.captcha.replay-cache-size:100000}") long replayCacheSize,
+                            RedisUtil redisUtil) {
+        if (!StringUtils.hasText(secret) || LEGACY_DEFAULT_SECRET.equals(secret)) {
+            throw new IllegalStateException("auth.captcha.mode=hmac时必须配置auth.captcha.secret");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化验证码签名失败", e);
+        }
+        this.expire = expire;
+        this.redisUtil = redisUtil;
+        this.usedNonces = REPLAY_STORE_REDIS.equalsIgnoreCase(replayStore) ? null
+                : Caffeine.newBuilder()
+                .expireAfterWrite(expire, TimeUnit.SECONDS)
+                .maximumSize(replayCacheSize)
+                .build();
+    }
+
+    @Override
+    public String issue(String text) {
+        long nonce = random.nextLong();
+        int expiry = (int) (System.currentTimeMillis() / 1000 + expire);
+        ByteBuffer token = ByteBuffer.allocate(TOKEN_LENGTH)
+                .putLong(nonce)
+                .putInt(expiry)
+                .put(hmac(nonce, expiry, text), 0, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+    }
+
+    @Override
+    public void verify(String captcha, String captchaKey) {
+        ByteBuffer token = decode(captchaKey);
+        if (token == null) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_EXPIRE);
+        }
+        long nonce = token.getLong();
+        int expiry = token.getInt();
+        long remaining = Integer.toUnsignedLong(expiry) - System.currentTimeMillis() / 1000;
+        if (remaining <= 0) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_EXPIRE);
+        }
+        if (captcha == null) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_ERROR);
+        }
+        byte[] actual = new byte[MAC_LENGTH];
+        token.get(actual);
+        byte[] expected = Arrays.copyOf(hmac(nonce, expiry, captcha), MAC_LENGTH);
+        if (!MessageDigest.isEqual(actual, expected)) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_ERROR);
+        }
+        // 与Redis模式一致，令牌被使用过视为验证码已失效
+        if (!markUsed(nonce, remaining)) {
+            throw ValidateException.of(ErrorCode.CAPTCHA_EXPIRE);
+        }
+    }
+
+    private boolean markUsed(long nonce, long remaining) {
+        if (usedNonces == null) {
+            return redisUtil.setStringCacheValueIfAbsent(USED_NONCE_KEY_PREFIX + Long.toHexString(nonce),
+                    Boolean.TRUE, remaining, TimeUnit.SECONDS);
+        }
+        return usedNonces.asMap().putIfAbsent(nonce, Boolean.TRUE) == null;
+    }
+
+    private static ByteBuffer decode(String captchaKey) {
+        if (captchaKey == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(captchaKey);
+            return bytes.length == TOKEN_LENGTH ? ByteBuffer.wrap(bytes) : null;
+        } catch (IllegalArgumentException e) {
+            // 不是合法的Base64URL
+            return null;
+        }
+    }
+
+    private byte[] hmac(long nonce, int expiry, String text) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("当前JVM的HmacSHA256实现不支持克隆", e);
+        }
+        mac.update(ByteBuffer.allocate(NONCE_LENGTH + EXPIRY_LENGTH).putLong(nonce).putInt(expiry).array());
+        // 验证码不区分大小写
+        return mac.doFinal(text.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package com.blog.auth.service.impl;
+
+import com.blog.auth.service.CaptchaStore;
+import com.blog.auth.utils.JwtUtil;
+import com.blog.auth.utils.ValidatorUtil;
+import com.blog.common.utils.RedisUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于Redis的验证码存储：令牌是JWT，答案以令牌为键存入Redis，校验通过后删除
+ */
+@Component
+@ConditionalOnProperty(name = "auth.captcha.mode", havingValue = "redis", matchIfMissing = true)
+public class RedisCaptchaStore implements CaptchaStore {
+    @Autowired
+    private RedisUtil redisUtil;
+    // 验证码有效期，单位是秒
+    @Value("${auth.captcha.expire:60}")
+    private long expire;
+
+    @Override
+    public String issue(String text) {
+        String captchaKey = JwtUtil.generateToken(text, expire * 1000L);
+        redisUtil.setStringCacheValueWithExpiration(captchaKey, text, expire);
+        return captchaKey;
+    }
+
+    @Override
+    public void verify(String captcha, String captchaKey) {
+        ValidatorUtil.validateCaptcha(captcha, captchaKey, redisUtil);
+    }
+}
@@ -2,7 +2,11 @@ package com.blog.auth.utils;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 public class BCryptPasswordEncoder {
+    private static final String CALIBRATION_PASSWORD = "Calibrate@2024";
 
     /**
      * 对密码进行加密
@@ -14,6 +18,67 @@ public class BCryptPasswordEncoder {
         return BCrypt.hashpw(rawPassword, BCrypt.gensalt());
     }
 
+    /**
+     * 使用指定的计算强度对密码进行加密
+     *
+     * @param rawPassword 原始密码
+     * @param cost        计算强度（log2轮数），范围4-31
+     * @return 加密后的密码
+     */
+    public static String encode(String rawPassword, int cost) {
+        return BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost));
+    }
+
+    /**
+     * 在当前机器上测量BCrypt耗时，选出满足单次耗时预算的最大计算强度
+     * <p>
+     * 先以最小强度预热一次，再取三次测量的中位数；强度每加1耗时翻倍，据此推算其余强度的耗时。
+     *
+     * @param latencyBudget 单次计算的耗时预算，单位是毫秒
+     * @param minCost       最小计算强度
+     * @param maxCost       最大计算强度
+     * @return 计算强度，范围在[minCost, maxCost]之间
+     */
+    public static int calibrateCost(long latencyBudget, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(minCost);
+        BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudget);
+        long elapsed = samples[1];
+        int cost = minCost;
+        while (cost < maxCost && elapsed * 2 <= budgetNanos) {
+            elapsed *= 2;
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * 从加密后的密码中解析计算强度，格式为 $2a$10$...
+     *
+     * @param encodedPassword 加密后的密码
+     * @return 计算强度，格式不正确时返回 -1
+     */
+    public static int getCost(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
     /**
      * 验证密码是否匹配
      *
@@ -0,0 +1,105 @@
+package com.blog.auth.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 验证码图片编码器
+ * <p>
+ * ImageIO.write每次调用都要按格式名查找ImageWriter、创建编码器和流包装对象。
+ * 这里每个线程为每种格式缓存一个ImageWriter和一块可复用的输出缓冲区，
+ * 编码完成后只复制一次，得到长度精确的字节数组，可以直接作为Content-Length一次写出。
+ */
+public final class CaptchaEncoder {
+    // 编码缓冲区的初始大小，120x40的JPEG验证码一般在3KB左右
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<Map<Format, Encoder>> ENCODERS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(Format.class));
+
+    private CaptchaEncoder() {
+    }
+
+    /**
+     * 验证码图片格式
+     */
+    public enum Format {
+        JPEG("image/jpeg"),
+        PNG("image/png"),
+        // JDK没有自带WebP编码器，只有类路径上存在ImageIO插件时才可用
+        WEBP("image/webp");
+
+        private final String contentType;
+        private final boolean available;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+            this.available = ImageIO.getImageWritersByMIMEType(contentType).hasNext();
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return 当前运行环境是否有该格式的编码器
+         */
+        public boolean isAvailable() {
+            return available;
+        }
+    }
+
+    /**
+     * 把验证码图片编码为指定格式
+     *
+     * @param image  验证码图片
+     * @param format 图片格式
+     * @return 长度精确的编码结果
+     * @throws UncheckedIOException 编码失败
+     * @throws IllegalArgumentException 当前运行环境不支持该格式
+     */
+    public static byte[] encode(BufferedImage image, Format format) {
+        return ENCODERS.get().computeIfAbsent(format, Encoder::new).encode(image);
+    }
+
+    private static final class Encoder {
+        private final ImageWriter writer;
+        private final ImageWriteParam param;
+        // 缓冲区随线程复用，reset后保留已扩容的数组
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        Encoder(Format format) {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(format.getContentType());
+            if (!writers.hasNext()) {
+                throw new IllegalArgumentException("不支持的验证码图片格式：" + format);
+            }
+            this.writer = writers.next();
+            this.param = writer.getDefaultWriteParam();
+        }
+
+        byte[] encode(BufferedImage image) {
+            buffer.reset();
+            try (ImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } catch (IOException e) {
+                throw new UncheckedIOException("验证码图片编码失败", e);
+            } finally {
+                // 清除输出流引用，writer留给当前线程下次使用
+                writer.reset();
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.blog.auth.utils;
+
+import com.google.code.kaptcha.Producer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 预渲染验证码池
+ * <p>
+ * Kaptcha的WaterRipple干扰和JPEG编码都很耗CPU，而每次登录前都要获取验证码。
+ * 这里由一个低优先级的后台线程提前渲染并编码好验证码，放入有界队列，
+ * 请求线程只需要取出一张直接写出字节；池被取空时退回到当场渲染。
+ * <p>
+ * 每张验证码只会被取出一次，不会重复下发。
+ * <p>
+ * 后台线程启动时先渲染几张样本，比较各格式编码后的平均大小，只有比JPEG小的格式（PNG、WebP）
+ * 才会在预渲染时一并编码；客户端接受这些格式时直接从池中取出对应的字节，请求线程上不会再次渲染或编码。
+ */
+@Slf4j
+@Component
+public class CaptchaPool {
+    // 渲染失败后重试前的等待时间，单位是毫秒
+    private static final long RETRY_DELAY = 1000;
+    // 选择图片格式时渲染的样本数
+    private static final int FORMAT_SAMPLES = 8;
+
+    private final Producer kaptchaProducer;
+    private final BlockingQueue<Captcha> pool;
+    private final Counter missCounter;
+    // 后台预渲染和池为空时当场渲染的耗时
+    private final Timer refillRenderTimer;
+    private final Timer inlineRenderTimer;
+    private final Thread refiller;
+    // 预渲染时额外编码的格式，由后台线程启动时按样本大小选出，之前为空
+    private volatile Set<CaptchaEncoder.Format> alternateFormats = Collections.emptySet();
+
+    public CaptchaPool(Producer kaptchaProducer,
+                       @Value("${auth.captcha.pool-size:256}") int poolSize,
+                       ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.kaptchaProducer = kaptchaProducer;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.missCounter = Counter.builder("auth.captcha.pool.miss")
+                .description("验证码池为空、需要当场渲染的次数")
+                .register(meterRegistry);
+        this.refillRenderTimer = renderTimer(meterRegistry, "refill");
+        this.inlineRenderTimer = renderTimer(meterRegistry, "inline");
+        Gauge.builder("auth.captcha.pool.size", pool, BlockingQueue::size)
+                .description("验证码池中剩余的验证码数量")
+                .register(meterRegistry);
+        this.refiller = new Thread(this::refill, "captcha-refill");
+        this.refiller.setDaemon(true);
+        this.refiller.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    @PostConstruct
+    public void start() {
+        refiller.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.interrupt();
+    }
+
+    /**
+     * 取出一张验证码，池为空时当场渲染
+     *
+     * @return 验证码文本和编码后的图片
+     */
+    public Captcha take() {
+        Captcha captcha = pool.poll();
+        if (captcha != null) {
+            return captcha;
+        }
+        missCounter.increment();
+        return inlineRenderTimer.record(this::render);
+    }
+
+    /**
+     * 按客户端偏好的格式取出一张验证码
+     * <p>
+     * 偏好的格式在预渲染时已经编码（即该格式比JPEG小）时返回该格式，否则返回JPEG。
+     *
+     * @param preferred 客户端偏好的图片格式
+     * @return 验证码文本和编码后的图片
+     */
+    public Captcha take(CaptchaEncoder.Format preferred) {
+        return take().as(preferred);
+    }
+
+    private void refill() {
+        try {
+            alternateFormats = chooseAlternateFormats();
+        } catch (RuntimeException e) {
+            log.warn("选择验证码图片格式失败，只使用JPEG", e);
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // 池满时阻塞，直到有验证码被取走
+                pool.put(refillRenderTimer.record(this::renderPooled));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("预渲染验证码失败", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static Timer renderTimer(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("auth.captcha.render")
+                .description("验证码渲染和编码耗时")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 渲染几张样本，选出平均大小比JPEG小的格式
+     */
+    private Set<CaptchaEncoder.Format> chooseAlternateFormats() {
+        Map<CaptchaEncoder.Format, Long> totalSizes = new EnumMap<>(CaptchaEncoder.Format.class);
+        for (int i = 0; i < FORMAT_SAMPLES; i++) {
+            BufferedImage image = kaptchaProducer.createImage(kaptchaProducer.createText());
+            for (CaptchaEncoder.Format format : CaptchaEncoder.Format.values()) {
+                if (format.isAvailable()) {
+                    totalSizes.merge(format, (long) CaptchaEncoder.encode(image, format).length, Long::sum);
+                }
+            }
+        }
+        long jpegSize = totalSizes.get(CaptchaEncoder.Format.JPEG);
+        Set<CaptchaEncoder.Format> formats = EnumSet.noneOf(CaptchaEncoder.Format.class);
+        totalSizes.forEach((format, size) -> {
+            if (size < jpegSize) {
+                formats.add(format);
+            }
+        });
+        log.info("验证码平均大小（字节）：{}，预渲染额外编码的格式：{}",
+                totalSizes.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue() / FORMAT_SAMPLES)),
+                formats);
+        return formats;
+    }
+
+    // 池为空时当场渲染，只编码JPEG
+    private Captcha render() {
+        return renderWith(Collections.emptySet());
+    }
+
+    // 放入池中的验证码，额外编码选出的格式
+    private Captcha renderPooled() {
+        return renderWith(alternateFormats);
+    }
+
+    private Captcha renderWith(Set<CaptchaEncoder.Format> alternates) {
+        String text = kaptchaProducer.createText();
+        BufferedImage image = kaptchaProducer.createImage(text);
+        Map<CaptchaEncoder.Format, byte[]> alternatives = Collections.emptyMap();
+        if (!alternates.isEmpty()) {
+            alternatives = new EnumMap<>(CaptchaEncoder.Format.class);
+            for (CaptchaEncoder.Format format : alternates) {
+                alternatives.put(format, CaptchaEncoder.encode(image, format));
+            }
+        }
+        return new Captcha(text, CaptchaEncoder.encode(image, CaptchaEncoder.Format.JPEG),
+                CaptchaEncoder.Format.JPEG, alternatives);
+    }
+
+    /**
+     * 预渲染的验证码
+     */
+    @Getter
+    public static final class Captcha {
+        // 验证码答案
+        private final String text;
+        // 编码后的图片
+        private final byte[] image;
+        // 图片格式
+        private final CaptchaEncoder.Format format;
+        // 同一张图片的其他格式，只包含比JPEG小的格式
+        @Getter(AccessLevel.NONE)
+        private final Map<CaptchaEncoder.Format, byte[]> alternatives;
+
+        Captcha(String text, byte[] image, CaptchaEncoder.Format format,
+                Map<CaptchaEncoder.Format, byte[]> alternatives) {
+            this.text = text;
+            this.image = image;
+            this.format = format;
+            this.alternatives = alternatives;
+        }
+
+        /**
+         * 获取指定格式的同一张验证码，没有该格式时返回自身
+         *
+         * @param preferred 客户端偏好的图片格式
+         * @return 验证码
+         */
+        Captcha as(CaptchaEncoder.Format preferred) {
+            byte[] alternative = preferred == format ? null : alternatives.get(preferred);
+            return alternative == null ? this
+                    : new Captcha(text, alternative, preferred, Collections.emptyMap());
+        }
+    }
+}
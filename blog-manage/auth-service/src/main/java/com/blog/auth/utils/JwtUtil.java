@@ -2,9 +2,12 @@ package com.blog.auth.utils;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
 import java.security.Key;
 import java.util.Date;
@@ -14,6 +17,19 @@ public class JwtUtil {
     // 使用 Keys.secretKeyFor 生成一个足够安全的密钥
     private static final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     private static final Long EXPIRATION_TIME = 1000L * 60 * 60 * 3L; // 3 小时
+    // 预先构建好的解析器，DefaultJwtParser 不可变且线程安全，可以在所有线程间共用
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+    // 签发和验签耗时，注册到全局注册表，Spring Boot会把应用的注册表加入其中
+    private static final Timer SIGN_TIMER = Timer.builder("auth.jwt")
+            .description("JWT签发和验签耗时")
+            .tag("operation", "sign")
+            .register(Metrics.globalRegistry);
+    private static final Timer VERIFY_TIMER = Timer.builder("auth.jwt")
+            .description("JWT签发和验签耗时")
+            .tag("operation", "verify")
+            .register(Metrics.globalRegistry);
 
     /**
      * 生成 JWT，默认有效期是3 小时
@@ -22,12 +38,7 @@ public class JwtUtil {
      * @return 生成的 JWT 字符串
      */
     public static String generateToken(String str) {
-        return Jwts.builder()
-                .setSubject(str)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        return generateToken(str, EXPIRATION_TIME);
     }
 
     /**
@@ -37,12 +48,12 @@ public class JwtUtil {
      * @return token令牌
      */
     public static String generateToken(String str, Long expirationTime) {
-        return Jwts.builder()
+        return SIGN_TIMER.record(() -> Jwts.builder()
                 .setSubject(str)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
                 .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .compact());
     }
 
     /**
@@ -53,16 +64,21 @@ public class JwtUtil {
      * @throws RuntimeException 如果 JWT 验证失败
      */
     public static Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return VERIFY_TIMER.record(() -> PARSER.parseClaimsJws(token).getBody());
     }
 
     public static Long pareToken(String token) {
-        Claims claims = validateToken(token);
-        String userIdStr = claims.getSubject();
-        return Long.parseLong(userIdStr);
+        return verifyUserId(token);
+    }
+
+    /**
+     * 验证 JWT 并直接返回 subject 中的用户ID
+     *
+     * @param token JWT 字符串
+     * @return 用户ID
+     * @throws RuntimeException 如果 JWT 验证失败或 subject 不是数字
+     */
+    public static long verifyUserId(String token) {
+        return Long.parseLong(validateToken(token).getSubject());
     }
 }
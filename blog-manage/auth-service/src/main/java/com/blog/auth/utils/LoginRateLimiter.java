@@ -0,0 +1,166 @@
+package com.blog.auth.utils;
+
+import com.blog.common.enums.ErrorCode;
+import com.blog.common.exception.UserException;
+import com.blog.common.ratelimit.SlidingWindowRateLimiter;
+import com.blog.common.ratelimit.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录限流
+ * <p>
+ * 按客户端IP和登录账号（用户名或手机号）两个维度限制登录次数，{@link #check}必须在查询数据库和计算BCrypt之前调用。
+ * 先经过本地令牌桶吸收单个实例上的突发流量，被拒绝的请求不会访问Redis；
+ * 再用Redis滑动窗口在所有实例之间精确计数。超出限制时抛出{@link ErrorCode#USER_LOCKED}。
+ * <p>
+ * IP维度每次请求都计数；账号维度在{@link #check}中只检查不计数，只有通过验证码后登录失败时
+ * 才通过{@link #recordFailure}计数，否则任何人不带验证码发几次请求就能锁住别人的账号。
+ */
+@Component
+public class LoginRateLimiter {
+    private static final String IP_KEY_PREFIX = "auth:login:limit:ip:";
+    private static final String ACCOUNT_KEY_PREFIX = "auth:login:limit:account:";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final boolean enabled;
+    private final SlidingWindowRateLimiter slidingWindow;
+    private final int ipLimit;
+    private final Duration ipWindow;
+    private final int accountLimit;
+    private final Duration accountWindow;
+    private final int burst;
+    private final double permitsPerSecond;
+    // 本地令牌桶，长时间没有请求的键自动淘汰
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter localRejected;
+    private final Counter remoteRejected;
+
+    public LoginRateLimiter(StringRedisTemplate redisTemplate,
+                            @Value("${auth.login.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${auth.login.rate-limit.ip-limit:30}") int ipLimit,
+                            @Value("${auth.login.rate-limit.ip-window:60}") long ipWindowSeconds,
+                            @Value("${auth.login.rate-limit.account-limit:10}") int accountLimit,
+                            @Value("${auth.login.rate-limit.account-window:300}") long accountWindowSeconds,
+                            @Value("${auth.login.rate-limit.burst:5}") int burst,
+                            @Value("${auth.login.rate-limit.permits-per-second:1}") double permitsPerSecond,
+                            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.enabled = enabled;
+        this.slidingWindow = new SlidingWindowRateLimiter(redisTemplate);
+        this.ipLimit = ipLimit;
+        this.ipWindow = Duration.ofSeconds(ipWindowSeconds);
+        this.accountLimit = accountLimit;
+        this.accountWindow = Duration.ofSeconds(accountWindowSeconds);
+        this.burst = burst;
+        this.permitsPerSecond = permitsPerSecond;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Math.max(1, (long) Math.ceil(burst / permitsPerSecond)), TimeUnit.SECONDS)
+                .maximumSize(100_000)
+                .build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.localRejected = counter(meterRegistry, "local");
+        this.remoteRejected = counter(meterRegistry, "remote");
+    }
+
+    /**
+     * 检查本次登录是否超出限制
+     *
+     * @param request 当前请求，用于获取客户端IP
+     * @param account 登录账号（用户名或手机号），可以为 null
+     * @throws UserException 超出限制时抛出，错误码为USER_LOCKED
+     */
+    public void check(HttpServletRequest request, String account) {
+        if (!enabled) {
+            return;
+        }
+        List<SlidingWindowRateLimiter.Rule> rules = new ArrayList<>(2);
+        String accountKey = accountKey(account);
+        if (accountKey != null) {
+            // 账号的本地令牌桶只在登录失败时创建和消耗，这里只检查
+            TokenBucket accountBucket = buckets.getIfPresent(accountKey);
+            if (accountBucket != null && !accountBucket.hasPermit()) {
+                localRejected.increment();
+                throw UserException.of(ErrorCode.USER_LOCKED);
+            }
+            rules.add(SlidingWindowRateLimiter.Rule.checkOnly(accountKey, accountLimit, accountWindow));
+        }
+        TokenBucket ipBucket = null;
+        String ip = clientIp(request);
+        if (ip != null) {
+            String ipKey = IP_KEY_PREFIX + ip;
+            ipBucket = bucket(ipKey);
+            if (!ipBucket.tryAcquire()) {
+                localRejected.increment();
+                throw UserException.of(ErrorCode.USER_LOCKED);
+            }
+            rules.add(new SlidingWindowRateLimiter.Rule(ipKey, ipLimit, ipWindow));
+        }
+        if (slidingWindow.tryAcquire(rules.toArray(new SlidingWindowRateLimiter.Rule[0])) > 0) {
+            // 本次请求没有被放行，归还刚取出的令牌
+            if (ipBucket != null) {
+                ipBucket.release();
+            }
+            remoteRejected.increment();
+            throw UserException.of(ErrorCode.USER_LOCKED);
+        }
+    }
+
+    /**
+     * 记录一次账号登录失败，只能在验证码校验通过之后调用
+     *
+     * @param account 登录账号（用户名或手机号），可以为 null
+     */
+    public void recordFailure(String account) {
+        String accountKey = accountKey(account);
+        if (!enabled || accountKey == null) {
+            return;
+        }
+        bucket(accountKey).tryAcquire();
+        slidingWindow.tryAcquire(new SlidingWindowRateLimiter.Rule(accountKey, accountLimit, accountWindow));
+    }
+
+    private TokenBucket bucket(String key) {
+        return buckets.get(key, k -> new TokenBucket(burst, permitsPerSecond));
+    }
+
+    private static String accountKey(String account) {
+        return account == null || account.isEmpty() ? null : ACCOUNT_KEY_PREFIX + account;
+    }
+
+    /**
+     * 获取客户端IP
+     * <p>
+     * 网关会把它看到的客户端地址追加到X-Forwarded-For末尾，客户端自己伪造的值只会出现在前面，
+     * 所以取最后一个地址；没有经过网关时使用连接的远程地址。
+     */
+    private static String clientIp(HttpServletRequest request) {
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (forwardedFor != null && !forwardedFor.isEmpty()) {
+            String ip = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+            if (!ip.isEmpty()) {
+                return ip;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String level) {
+        return Counter.builder("auth.login.rate-limited")
+                .description("登录被限流的次数")
+                .tag("level", level)
+                .register(meterRegistry);
+    }
+}
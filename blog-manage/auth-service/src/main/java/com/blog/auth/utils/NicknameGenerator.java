@@ -0,0 +1,43 @@
+package com.blog.auth.utils;
+
+import com.blog.common.id.SnowflakeIdGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 默认昵称生成器
+ * <p>
+ * 昵称由前缀和一个雪花ID的36进制表示组成，雪花ID在各个auth-service实例之间天然唯一，
+ * 注册时不需要再查询数据库判重。
+ */
+@Component
+public class NicknameGenerator {
+    private static final String NICKNAME_PREFIX = "Zw_";
+    private static final int RADIX = 36;
+
+    private final SnowflakeIdGenerator idGenerator;
+
+    public NicknameGenerator(SnowflakeIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * 生成唯一的默认昵称
+     *
+     * @return 昵称，例如 Zw_3x9k2m1qa8w
+     */
+    public String generate() {
+        long id = idGenerator.nextId();
+        int digits = 1;
+        for (long n = id / RADIX; n > 0; n /= RADIX) {
+            digits++;
+        }
+        int prefixLength = NICKNAME_PREFIX.length();
+        char[] chars = new char[prefixLength + digits];
+        NICKNAME_PREFIX.getChars(0, prefixLength, chars, 0);
+        for (int i = chars.length - 1; i >= prefixLength; i--) {
+            chars[i] = Character.forDigit((int) (id % RADIX), RADIX);
+            id /= RADIX;
+        }
+        return new String(chars);
+    }
+}
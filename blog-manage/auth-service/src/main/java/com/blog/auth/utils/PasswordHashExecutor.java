@@ -0,0 +1,225 @@
+package com.blog.auth.utils;
+
+import com.blog.auth.config.BCryptProperty;
+import com.blog.common.enums.ErrorCode;
+import com.blog.common.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt专用线程池
+ * <p>
+ * BCrypt每次计算要消耗几十到几百毫秒CPU，直接在Tomcat线程上执行时，登录洪峰会占满Servlet线程池，
+ * 连/auth/captcha这类廉价接口也会超时。这里把BCrypt计算放到按CPU核数设置的有界线程池中，
+ * 队列满或等待超时时直接抛出{@link ServiceBusyException}（503），同时记录排队耗时和计算耗时。
+ * BCrypt计算本身无法中断，因此任务开始前先检查调用方的截止时间：剩余时间已不够完成一次计算时直接放弃，
+ * 不再为已经返回503的请求占用线程。
+ * <p>
+ * 计算强度在启动时按单次耗时预算自动选择（也可以通过auth.bcrypt.cost固定），
+ * 登录成功后强度低于当前强度的旧密码会在后台按新强度重新加密，无需批量迁移密码。
+ * 只升级不降级：各实例按本机耗时校准出的强度可能不同，双向重新加密会让同一个用户在实例之间来回改写密码，
+ * 需要整个集群强度一致时请固定auth.bcrypt.cost。重新加密（包括计算和数据库写入）在单独的低优先级线程中执行，
+ * 不占用登录使用的BCrypt线程和队列，大量旧密码用户同时登录时也不会把正常登录挤成503。
+ */
+@Slf4j
+@Component
+public class PasswordHashExecutor {
+    private static final String OPERATION_ENCODE = "encode";
+    private static final String OPERATION_MATCHES = "matches";
+
+    private final ThreadPoolExecutor executor;
+    // 调用方最多等待的时间，单位是毫秒
+    private final long timeout;
+    // 新密码使用的计算强度
+    private final int targetCost;
+    private final Counter rejectedCounter;
+    private final Counter expiredCounter;
+    private final Timer encodeQueueWaitTimer;
+    private final Timer encodeHashTimer;
+    private final Timer matchesQueueWaitTimer;
+    private final Timer matchesHashTimer;
+    // 最近一次计算的耗时，单位是纳秒，用于判断剩余时间是否足够
+    private volatile long lastHashNanos;
+    // 执行后台重新加密和数据库写入，队列满时放弃，下次登录再尝试
+    private final ThreadPoolExecutor rehashExecutor;
+
+    public PasswordHashExecutor(BCryptProperty bCryptProperty,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        int threads = bCryptProperty.getThreads();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bCryptProperty.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rehashExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bCryptProperty.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-rehash");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = bCryptProperty.getTimeout();
+        this.targetCost = bCryptProperty.resolveCost();
+        log.info("BCrypt计算强度：{}", targetCost);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.rejectedCounter = Counter.builder("auth.bcrypt.rejected")
+                .description("BCrypt线程池饱和被拒绝的次数")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("auth.bcrypt.expired")
+                .description("开始执行时已来不及在截止时间前完成而跳过的BCrypt任务数")
+                .register(meterRegistry);
+        Gauge.builder("auth.bcrypt.queue.size", executor, e -> e.getQueue().size())
+                .description("BCrypt线程池排队的任务数")
+                .register(meterRegistry);
+        this.encodeQueueWaitTimer = timer(meterRegistry, "auth.bcrypt.queue.wait", OPERATION_ENCODE);
+        this.encodeHashTimer = timer(meterRegistry, "auth.bcrypt.hash", OPERATION_ENCODE);
+        this.matchesQueueWaitTimer = timer(meterRegistry, "auth.bcrypt.queue.wait", OPERATION_MATCHES);
+        this.matchesHashTimer = timer(meterRegistry, "auth.bcrypt.hash", OPERATION_MATCHES);
+    }
+
+    /**
+     * 在BCrypt线程池中加密密码
+     *
+     * @param rawPassword 原始密码
+     * @return 加密后的密码
+     * @throws ServiceBusyException 线程池饱和或等待超时
+     */
+    public String encode(String rawPassword) {
+        return execute(encodeQueueWaitTimer, encodeHashTimer,
+                () -> BCryptPasswordEncoder.encode(rawPassword, targetCost));
+    }
+
+    /**
+     * 在BCrypt线程池中验证密码
+     *
+     * @param rawPassword     原始密码
+     * @param encodedPassword 加密后的密码
+     * @return 密码是否匹配
+     * @throws ServiceBusyException 线程池饱和或等待超时
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(matchesQueueWaitTimer, matchesHashTimer,
+                () -> BCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 判断已加密的密码是否需要按当前计算强度重新加密，只升级不降级
+     *
+     * @param encodedPassword 加密后的密码
+     * @return 计算强度低于目标时返回 true
+     */
+    public boolean needsRehash(String encodedPassword) {
+        int cost = BCryptPasswordEncoder.getCost(encodedPassword);
+        return cost > 0 && cost < targetCost;
+    }
+
+    /**
+     * 在后台按当前计算强度重新加密密码，队列满时直接放弃，下次登录再尝试
+     *
+     * @param rawPassword 原始密码
+     * @param onRehashed  重新加密完成后的回调，参数是新的密文，在重新加密线程中执行
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onRehashed) {
+        try {
+            rehashExecutor.execute(() -> {
+                String encoded;
+                try {
+                    encoded = BCryptPasswordEncoder.encode(rawPassword, targetCost);
+                } catch (RuntimeException e) {
+                    log.warn("重新加密密码失败", e);
+                    return;
+                }
+                try {
+                    onRehashed.accept(encoded);
+                } catch (RuntimeException e) {
+                    log.warn("写回重新加密的密码失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("重新加密队列已满，跳过本次重新加密");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        rehashExecutor.shutdown();
+    }
+
+    private <T> T execute(Timer queueWaitTimer, Timer hashTimer, Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        long deadline = submittedAt + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                // 调用方已经超时或来不及等到结果，不再计算
+                if (Thread.currentThread().isInterrupted() || deadline - startedAt < lastHashNanos) {
+                    expiredCounter.increment();
+                    throw new ServiceBusyException(ErrorCode.SERVER_BUSY);
+                }
+                try {
+                    return task.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    lastHashNanos = elapsed;
+                    hashTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException(ErrorCode.SERVER_BUSY, e);
+        }
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 排队中的任务不会再执行；已经开始的计算无法中断，但会在结束后立即释放线程
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceBusyException(ErrorCode.SERVER_BUSY, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(ErrorCode.SERVER_BUSY, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("BCrypt计算失败", cause);
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String operation) {
+        return Timer.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
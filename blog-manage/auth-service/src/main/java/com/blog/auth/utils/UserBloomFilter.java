@@ -0,0 +1,339 @@
+package com.blog.auth.utils;
+
+import com.blog.auth.mapper.AuthMapper;
+import com.blog.common.domain.po.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 已注册用户名、手机号的布隆过滤器
+ * <p>
+ * 撞库流量中大部分用户名并不存在，过滤器判定"一定不存在"时直接返回，不再查询数据库。
+ * 位图同时保存在Redis（各实例共享）和本地内存（本地镜像）中：
+ * 本地判定存在时直接放行；本地判定不存在时再用一次Lua脚本向Redis确认，
+ * 因为其他实例刚注册的用户可能还没有同步到本地。
+ * <p>
+ * 启动时从Redis加载位图，Redis中不存在完整位图时从数据库重建：先写入临时键，
+ * 再用Lua脚本把重建期间其他实例写入的位OR合并进去，原子地RENAME到正式键并写入"已构建"标记。
+ * 只有标记和位图同时存在时位图才是完整的；标记缺失（首次重建未完成、键被淘汰或清空）时，
+ * 查询一律判定为可能存在并在后台重新构建，新增的位仍写入正式键，发布重建结果时一并合并。
+ * 布隆过滤器不支持删除，已删除的用户只会造成少量误判，仍由数据库兜底。
+ * <p>
+ * 过滤器未就绪或Redis不可用时一律判定为可能存在，退回到查询数据库。
+ */
+@Slf4j
+@Component
+public class UserBloomFilter {
+    private static final String KEY_PREFIX = "auth:bloom:user:";
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String PHONE_PREFIX = "p:";
+    private static final String BUILT_SUFFIX = ":built";
+    private static final String REBUILD_SUFFIX = ":rebuild:";
+    // 位图不完整时返回-1，调用方按可能存在处理
+    private static final RedisScript<Long> CONTAINS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 or redis.call('exists', KEYS[2]) == 0 then return -1 end "
+                    + "for i = 1, #ARGV do if redis.call('getbit', KEYS[1], ARGV[i]) == 0 then return 0 end end return 1",
+            Long.class);
+    // 位图已被淘汰而标记还在时先删除标记，SETBIT新建出的残缺位图不能被当作完整位图；
+    // 标记缺失时照常写入，重建发布时会合并这些位
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then redis.call('del', KEYS[2]) end "
+                    + "for i = 1, #ARGV do redis.call('setbit', KEYS[1], ARGV[i], 1) end return 1",
+            Long.class);
+    // KEYS[1]正式键，KEYS[2]临时键，KEYS[3]标记键；合并重建期间写入的位后替换正式键
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then redis.call('bitop', 'or', KEYS[2], KEYS[2], KEYS[1]) end "
+                    + "redis.call('rename', KEYS[2], KEYS[1]) redis.call('set', KEYS[3], ARGV[1]) return 1",
+            Long.class);
+
+    private final AuthMapper authMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    // 位数，取64的整数倍
+    private final long bitSize;
+    // 哈希函数个数
+    private final int hashCount;
+    // Redis键中带上位数和哈希函数个数，修改配置后自动使用新的位图
+    private final String key;
+    // 位图构建完成的标记键，值是构建时间
+    private final String builtKey;
+    private final AtomicLongArray bits;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public UserBloomFilter(AuthMapper authMapper, StringRedisTemplate redisTemplate,
+                           @Value("${auth.bloom.enabled:true}") boolean enabled,
+                           @Value("${auth.bloom.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${auth.bloom.fpp:0.01}") double fpp,
+                           @Value("${auth.bloom.rebuild-batch-size:1000}") int batchSize) {
+        this.authMapper = authMapper;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitSize = (optimalBits + 63) / 64 * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.key = KEY_PREFIX + bitSize + ":" + hashCount;
+        this.builtKey = key + BUILT_SUFFIX;
+        this.bits = new AtomicLongArray(enabled ? (int) (bitSize / 64) : 0);
+    }
+
+    /**
+     * 启动完成后在后台加载位图，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            loadAsync();
+        }
+    }
+
+    /**
+     * 判断用户名是否可能已注册
+     *
+     * @param username 用户名
+     * @return 返回 false 时一定未注册
+     */
+    public boolean mightContainUsername(String username) {
+        return username == null || mightContain(USERNAME_PREFIX + username);
+    }
+
+    /**
+     * 判断手机号是否可能已注册
+     *
+     * @param phone 手机号
+     * @return 返回 false 时一定未注册
+     */
+    public boolean mightContainPhone(String phone) {
+        return phone == null || mightContain(PHONE_PREFIX + phone);
+    }
+
+    /**
+     * 记录新注册（或修改后）的用户名和手机号
+     *
+     * @param user 用户信息
+     */
+    public void put(User user) {
+        if (!enabled) {
+            return;
+        }
+        if (user.getUsername() != null) {
+            put(USERNAME_PREFIX + user.getUsername());
+        }
+        if (user.getPhone() != null) {
+            put(PHONE_PREFIX + user.getPhone());
+        }
+    }
+
+    /**
+     * 从数据库重建位图，按主键游标分页读取，并与Redis中已有的位图合并
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String tempKey = key + REBUILD_SUFFIX + UUID.randomUUID();
+        byte[] bitmap = new byte[(int) (bitSize / 8)];
+        long[] offsets = new long[hashCount];
+        long lastId = 0;
+        long count = 0;
+        List<User> users;
+        do {
+            users = authMapper.selectIdentifiersAfter(lastId, batchSize);
+            for (User user : users) {
+                if (user.getUsername() != null) {
+                    setBits(bitmap, offsets, USERNAME_PREFIX + user.getUsername());
+                }
+                if (user.getPhone() != null) {
+                    setBits(bitmap, offsets, PHONE_PREFIX + user.getPhone());
+                }
+                lastId = user.getId();
+            }
+            count += users.size();
+        } while (users.size() == batchSize);
+
+        byte[] rawTempKey = tempKey.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.stringCommands().set(rawTempKey, bitmap));
+        redisTemplate.execute(PUBLISH_SCRIPT, Arrays.asList(key, tempKey, builtKey), String.valueOf(start));
+        load();
+        log.info("重建用户布隆过滤器完成，用户数：{}，耗时：{}ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 在后台加载位图，Redis中没有完整位图时从数据库重建，同一时间只有一个后台任务
+     */
+    private void loadAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                if (!load()) {
+                    rebuild();
+                }
+            } catch (RuntimeException e) {
+                log.warn("加载用户布隆过滤器失败，暂时退回到查询数据库", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "user-bloom-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 从Redis加载位图到本地
+     *
+     * @return Redis中不存在完整位图（缺少构建标记）时返回 false
+     */
+    private boolean load() {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        byte[] rawBuiltKey = builtKey.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(rawBuiltKey, rawKey));
+        if (values == null || values.size() < 2 || values.get(0) == null || values.get(1) == null) {
+            return false;
+        }
+        byte[] bitmap = values.get(1);
+        int words = bits.length();
+        for (int word = 0; word < words; word++) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                int index = word * 8 + i;
+                if (index < bitmap.length) {
+                    // Redis位图中偏移0是第一个字节的最高位
+                    value |= (long) (Integer.reverse(bitmap[index] & 0xFF) >>> 24) << (i * 8);
+                }
+            }
+            if (value != 0) {
+                orWord(word, value);
+            }
+        }
+        ready = true;
+        return true;
+    }
+
+    private boolean mightContain(String value) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        long[] offsets = offsets(value);
+        boolean local = true;
+        for (long offset : offsets) {
+            if ((bits.get((int) (offset >>> 6)) & (1L << offset)) == 0) {
+                local = false;
+                break;
+            }
+        }
+        if (local) {
+            return true;
+        }
+        try {
+            Long result = redisTemplate.execute(CONTAINS_SCRIPT, Arrays.asList(key, builtKey), toArgs(offsets));
+            if (result == null) {
+                return true;
+            }
+            if (result < 0) {
+                log.warn("Redis中的用户布隆过滤器不完整，后台重新构建");
+                loadAsync();
+                return true;
+            }
+            if (result == 1) {
+                setLocalBits(offsets);
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            log.warn("查询用户布隆过滤器失败", e);
+            return true;
+        }
+    }
+
+    private void put(String value) {
+        long[] offsets = offsets(value);
+        setLocalBits(offsets);
+        try {
+            redisTemplate.execute(ADD_SCRIPT, Arrays.asList(key, builtKey), toArgs(offsets));
+        } catch (RuntimeException e) {
+            // Redis中缺少这一位时，其他实例会误判为不存在，记录下来以便重建
+            log.error("写入用户布隆过滤器失败，请重建过滤器", e);
+        }
+    }
+
+    private void setLocalBits(long[] offsets) {
+        for (long offset : offsets) {
+            orWord((int) (offset >>> 6), 1L << offset);
+        }
+    }
+
+    private void orWord(int word, long mask) {
+        long prev;
+        do {
+            prev = bits.get(word);
+            if ((prev & mask) == mask) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, prev, prev | mask));
+    }
+
+    private void setBits(byte[] bitmap, long[] offsets, String value) {
+        fillOffsets(value, offsets);
+        for (long offset : offsets) {
+            bitmap[(int) (offset >>> 3)] |= (byte) (0x80 >>> (offset & 7));
+        }
+    }
+
+    private long[] offsets(String value) {
+        long[] offsets = new long[hashCount];
+        fillOffsets(value, offsets);
+        return offsets;
+    }
+
+    /**
+     * 双重哈希：由一个64位哈希拆出两个32位哈希h1、h2，第i个位置为 h1 + i * h2
+     */
+    private void fillOffsets(String value, long[] offsets) {
+        long hash = hash(value.getBytes(StandardCharsets.UTF_8));
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = hash >>> 32;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (h1 + i * h2) % bitSize;
+        }
+    }
+
+    // FNV-1a 64位哈希，再经过splitmix64的混合函数打散
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static Object[] toArgs(long[] offsets) {
+        Object[] args = new Object[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            args[i] = String.valueOf(offsets[i]);
+        }
+        return args;
+    }
+}
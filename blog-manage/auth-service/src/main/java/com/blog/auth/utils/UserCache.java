@@ -0,0 +1,122 @@
+package com.blog.auth.utils;
+
+import com.blog.auth.mapper.AuthMapper;
+import com.blog.common.cache.NearCache;
+import com.blog.common.cache.NearCacheManager;
+import com.blog.common.domain.po.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户信息缓存
+ * <p>
+ * 分别按用户ID、用户名、手机号缓存登录需要的用户信息（本地Caffeine + Redis），
+ * 同一个键的并发未命中只会查询一次数据库；查询不到的用户也会短暂缓存，挡住枚举用户名的请求。
+ * 用户信息不包含密码，密码密文放在只供认证服务读取的独立命名空间中，按用户ID缓存，
+ * 其他服务读取用户信息时不会拿到密文。
+ * <p>
+ * 修改用户信息或密码后必须调用{@link #evict(User)}，按旧的用户名、手机号清理全部键（包括密码）。
+ */
+@Component
+public class UserCache {
+    // 旧的auth:user:*缓存中带有密码，换用新的命名空间，旧数据到期后自然清除
+    private static final String ID_NAMESPACE = "auth:user:profile:id";
+    private static final String USERNAME_NAMESPACE = "auth:user:profile:username";
+    private static final String PHONE_NAMESPACE = "auth:user:profile:phone";
+    // 密码密文，只有认证服务使用
+    private static final String PASSWORD_NAMESPACE = "auth:user:password:id";
+
+    private final AuthMapper authMapper;
+    private final NearCache<User> byId;
+    private final NearCache<User> byUsername;
+    private final NearCache<User> byPhone;
+    private final NearCache<String> passwordById;
+
+    public UserCache(AuthMapper authMapper, NearCacheManager nearCacheManager) {
+        this.authMapper = authMapper;
+        this.byId = nearCacheManager.getCache(ID_NAMESPACE);
+        this.byUsername = nearCacheManager.getCache(USERNAME_NAMESPACE);
+        this.byPhone = nearCacheManager.getCache(PHONE_NAMESPACE);
+        this.passwordById = nearCacheManager.getCache(PASSWORD_NAMESPACE);
+    }
+
+    /**
+     * 根据用户ID获取用户信息
+     *
+     * @param id 用户ID
+     * @return 用户信息，不存在时返回 null
+     */
+    public User getById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return byId.get(String.valueOf(id), key -> authMapper.selectLoginUserById(id));
+    }
+
+    /**
+     * 根据用户名获取用户信息
+     *
+     * @param username 用户名
+     * @return 用户信息，不存在时返回 null
+     */
+    public User getByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        return byUsername.get(username, authMapper::selectLoginUserByUsername);
+    }
+
+    /**
+     * 根据手机号获取用户信息
+     *
+     * @param phone 手机号
+     * @return 用户信息，不存在时返回 null
+     */
+    public User getByPhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        return byPhone.get(phone, authMapper::selectLoginUserByPhone);
+    }
+
+    /**
+     * 根据用户ID获取密码密文
+     *
+     * @param id 用户ID
+     * @return 密码密文，用户不存在时返回 null
+     */
+    public String getPasswordHash(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return passwordById.get(String.valueOf(id), key -> authMapper.selectPasswordById(id));
+    }
+
+    /**
+     * 清理用户的全部缓存，包括"用户不存在"的缓存
+     *
+     * @param user 用户信息，用户名和手机号应为修改前的值
+     */
+    public void evict(User user) {
+        if (user.getId() != null) {
+            byId.evict(String.valueOf(user.getId()));
+            passwordById.evict(String.valueOf(user.getId()));
+        }
+        if (user.getUsername() != null) {
+            byUsername.evict(user.getUsername());
+        }
+        if (user.getPhone() != null) {
+            byPhone.evict(user.getPhone());
+        }
+    }
+
+    /**
+     * 只清理密码密文的缓存，用于只修改了密码的场景
+     *
+     * @param id 用户ID
+     */
+    public void evictPassword(Long id) {
+        if (id != null) {
+            passwordById.evict(String.valueOf(id));
+        }
+    }
+}
@@ -34,20 +34,20 @@ public class ValidatorUtil {
     public static boolean validatePassword(String password) {
         /* 基础空值检查 */
         if (isNullOrEmpty(password)) {
-            throw new ValidateException(ErrorCode.ARGUMENT_IS_NULL);
+            throw ValidateException.of(ErrorCode.ARGUMENT_IS_NULL);
         }
 
         /* 密码长度有效性验证 */
         int passwordLength = password.length();
         if (passwordLength < LoginRelationConstants.PASSWORD_LENGTH_MIN ||
                 passwordLength > LoginRelationConstants.PASSWORD_LENGTH_MAX) {
-            throw new ValidateException(ErrorCode.PASSWORD_LENGTH_ERROR);
+            throw ValidateException.of(ErrorCode.PASSWORD_LENGTH_ERROR);
         }
 
         /* 正则表达式格式验证 */
         // 检查密码是否符合格式
         if (!PASSWORD_PATTERN.matcher(password).matches()) {
-            throw new ValidateException(ErrorCode.PASSWORD_FORMAT_ERROR);
+            throw ValidateException.of(ErrorCode.PASSWORD_FORMAT_ERROR);
         }
 
         return true;
@@ -56,7 +56,7 @@ public class ValidatorUtil {
     public static boolean validateEquals(Object str1, Object str2) {
         // 如果说有一个为空
         if (str1 == null || str2 == null) {
-            throw new ValidateException(ErrorCode.ARGUMENT_IS_NULL);
+            throw ValidateException.of(ErrorCode.ARGUMENT_IS_NULL);
         }
 
         // 如果都不空
@@ -75,14 +75,14 @@ public class ValidatorUtil {
     public static boolean validateUsername(String username) {
         // 基础非空校验
         if (isNullOrEmpty(username)) {
-            throw new ValidateException(ErrorCode.ARGUMENT_IS_NULL);
+            throw ValidateException.of(ErrorCode.ARGUMENT_IS_NULL);
         }
 
         // 长度范围校验（使用预定义的常量值）
         int usernameLength = username.length();
         if (usernameLength < LoginRelationConstants.USERNAME_LENGTH_MIN ||
                 usernameLength > LoginRelationConstants.USERNAME_LENGTH_MAX) {
-            throw new ValidateException(ErrorCode.USERNAME_LENGTH_ERROR);
+            throw ValidateException.of(ErrorCode.USERNAME_LENGTH_ERROR);
         }
 
         return true;
@@ -93,12 +93,12 @@ public class ValidatorUtil {
         String storeCaptcha = (String) redisUtil.getStringCacheValue(captchaKey);
         if (storeCaptcha == null) {
             // 说明缓存中不存在验证码
-            throw new ValidateException(ErrorCode.CAPTCHA_EXPIRE);
+            throw ValidateException.of(ErrorCode.CAPTCHA_EXPIRE);
         }
         // 如果说存在
         if (!storeCaptcha.equalsIgnoreCase(captcha)) {
             // 说明验证码不匹配
-            throw new ValidateException(ErrorCode.CAPTCHA_ERROR);
+            throw ValidateException.of(ErrorCode.CAPTCHA_ERROR);
         }
         // 校验成功后删除缓存
         redisUtil.deleteCacheKeys(captchaKey);
@@ -0,0 +1,5 @@
+-- 登录和注册按用户名或手机号查询用户，AuthMapper 中的查询依赖这两个唯一索引
+-- 通过手机号注册的用户没有用户名（反之亦然），MySQL唯一索引允许多个 NULL
+ALTER TABLE `user`
+    ADD UNIQUE KEY uk_username (username),
+    ADD UNIQUE KEY uk_phone (phone);
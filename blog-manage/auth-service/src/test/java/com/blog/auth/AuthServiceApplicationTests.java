@@ -16,7 +16,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-@SpringBootTest
+// 用户上下文签名密钥没有默认值，测试使用固定的测试密钥
+@SpringBootTest(properties = "blog.user-context.secret=test-only-user-context-secret")
 class AuthServiceApplicationTests {
     private static final String NICKNAME_PREFIX = "ZW";
     private static final DateTimeFormatter TIMESTAMP_FORMATTER =
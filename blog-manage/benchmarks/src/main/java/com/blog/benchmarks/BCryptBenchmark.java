@@ -0,0 +1,49 @@
+package com.blog.benchmarks;
+
+import com.blog.auth.utils.BCryptPasswordEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同计算强度下BCrypt加密和验证的耗时，用于选择auth.bcrypt.cost和auth.bcrypt.latency-budget
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BCryptBenchmark {
+    private static final String PASSWORD = "Abc123456!";
+
+    @Param({"4", "8", "10", "12"})
+    public int cost;
+
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        encoded = BCryptPasswordEncoder.encode(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public String encode() {
+        return BCryptPasswordEncoder.encode(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return BCryptPasswordEncoder.matches(PASSWORD, encoded);
+    }
+}
@@ -0,0 +1,43 @@
+package com.blog.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 每个基准测试分别以单线程和CPU核数个线程各运行一遍，并开启GC分析（gc.alloc.rate.norm即每次操作分配的字节数），
+ * 结果写入当前目录下的 jmh-result-1t.json 和 jmh-result-Nt.json，便于发布前对比。
+ * <p>
+ * 用法：java -jar target/benchmarks.jar [JMH参数，例如 Jwt 只运行名称匹配的基准测试]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        int processors = Runtime.getRuntime().availableProcessors();
+        run(commandLine, 1);
+        if (processors > 1) {
+            run(commandLine, processors);
+        }
+    }
+
+    private static void run(CommandLineOptions commandLine, int threads) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result-" + threads + "t.json");
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        new Runner(options.build()).run();
+    }
+}
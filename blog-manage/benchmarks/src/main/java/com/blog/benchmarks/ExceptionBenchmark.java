@@ -0,0 +1,86 @@
+package com.blog.benchmarks;
+
+import com.blog.auth.utils.ValidatorUtil;
+import com.blog.common.enums.ErrorCode;
+import com.blog.common.exception.BaseException;
+import com.blog.common.exception.UserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 登录失败路径上抛出业务异常的吞吐量：收集堆栈与不收集堆栈、每次新建与共享实例的对比
+ * <p>
+ * depth模拟异常抛出点之上的调用深度，Spring MVC加上过滤器链通常有一百多层。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionBenchmark {
+    @Param({"true", "false"})
+    public boolean stackTrace;
+
+    @Param({"10", "150"})
+    public int depth;
+
+    public String invalidPassword = "abcdefghij";
+
+    @Setup
+    public void setUp() {
+        BaseException.setStackTraceEnabled(stackTrace);
+    }
+
+    /**
+     * 密码格式错误：ValidatorUtil抛出ValidateException
+     */
+    @Benchmark
+    public Object failingLogin() {
+        return callAt(depth, () -> ValidatorUtil.validatePassword(invalidPassword));
+    }
+
+    /**
+     * 密码错误：每次新建UserException
+     */
+    @Benchmark
+    public Object newException() {
+        return callAt(depth, () -> {
+            throw new UserException(ErrorCode.USER_PASSWORD_ERROR);
+        });
+    }
+
+    /**
+     * 密码错误：使用UserException.of，未开启堆栈时不分配对象
+     */
+    @Benchmark
+    public Object sharedException() {
+        return callAt(depth, () -> {
+            throw UserException.of(ErrorCode.USER_PASSWORD_ERROR);
+        });
+    }
+
+    private static Object callAt(int depth, Supplier<Object> action) {
+        try {
+            return recurse(depth, action);
+        } catch (BaseException e) {
+            return e.getErrorCode();
+        }
+    }
+
+    private static Object recurse(int depth, Supplier<Object> action) {
+        return depth == 0 ? action.get() : recurse(depth - 1, action);
+    }
+}
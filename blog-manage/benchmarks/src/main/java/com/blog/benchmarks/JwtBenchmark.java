@@ -0,0 +1,56 @@
+package com.blog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两个服务中JwtUtil的签发和验签
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private static final long USER_ID = 1234567890123456789L;
+
+    private String authToken;
+    private String gatewayToken;
+
+    @Setup
+    public void setUp() {
+        authToken = com.blog.auth.utils.JwtUtil.generateToken(String.valueOf(USER_ID));
+        gatewayToken = com.blog.gateway.utils.JwtUtil.generateToken(USER_ID);
+    }
+
+    @Benchmark
+    public String authGenerateToken() {
+        return com.blog.auth.utils.JwtUtil.generateToken(String.valueOf(USER_ID));
+    }
+
+    @Benchmark
+    public long authValidateToken() {
+        return com.blog.auth.utils.JwtUtil.verifyUserId(authToken);
+    }
+
+    @Benchmark
+    public String gatewayGenerateToken() {
+        return com.blog.gateway.utils.JwtUtil.generateToken(USER_ID);
+    }
+
+    @Benchmark
+    public long gatewayValidateToken() {
+        return com.blog.gateway.utils.JwtUtil.verifyUserId(gatewayToken);
+    }
+}
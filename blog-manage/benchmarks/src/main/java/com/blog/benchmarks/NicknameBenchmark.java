@@ -0,0 +1,41 @@
+package com.blog.benchmarks;
+
+import com.blog.auth.utils.NicknameGenerator;
+import com.blog.common.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 默认昵称生成，替代AuthServiceApplicationTests中启动整个Spring容器的多线程生成测试
+ * <p>
+ * 单个worker每毫秒最多生成4096个ID，吞吐量接近该上限时测到的是雪花算法的等待时间。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NicknameBenchmark {
+    private NicknameGenerator nicknameGenerator;
+
+    @Setup
+    public void setUp() {
+        nicknameGenerator = new NicknameGenerator(new SnowflakeIdGenerator(1));
+    }
+
+    @Benchmark
+    public String generate() {
+        return nicknameGenerator.generate();
+    }
+}
@@ -0,0 +1,43 @@
+package com.blog.benchmarks;
+
+import com.blog.auth.utils.ValidatorUtil;
+import com.blog.common.exception.ValidateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValidatorUtil.validatePassword，包括校验通过和格式错误（抛出异常）两种情况
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordValidatorBenchmark {
+    public String validPassword = "Abc123456!";
+    public String invalidPassword = "abcdefghij";
+
+    @Benchmark
+    public boolean valid() {
+        return ValidatorUtil.validatePassword(validPassword);
+    }
+
+    @Benchmark
+    public Object invalid() {
+        try {
+            return ValidatorUtil.validatePassword(invalidPassword);
+        } catch (ValidateException e) {
+            return e;
+        }
+    }
+}
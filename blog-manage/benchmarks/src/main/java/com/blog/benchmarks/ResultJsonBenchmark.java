@@ -0,0 +1,56 @@
+package com.blog.benchmarks;
+
+import com.blog.common.domain.vo.Result;
+import com.blog.common.domain.vo.UserVo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result的JSON序列化，ObjectMapper与Spring MVC默认配置一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultJsonBenchmark {
+    private ObjectMapper objectMapper;
+    private Result loginResult;
+    private Result errorResult;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        UserVo userVo = new UserVo();
+        userVo.setId(1234567890123456789L);
+        userVo.setUsername("benchmark_user");
+        userVo.setNickName("Zw_3x9k2m1qa8w");
+        userVo.setToken(com.blog.auth.utils.JwtUtil.generateToken("1234567890123456789"));
+        loginResult = Result.success(userVo);
+        errorResult = Result.error("用户不存在");
+    }
+
+    @Benchmark
+    public byte[] success() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loginResult);
+    }
+
+    @Benchmark
+    public byte[] error() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(errorResult);
+    }
+}
@@ -0,0 +1,69 @@
+package com.blog.benchmarks;
+
+import cn.hutool.core.text.AntPathMatcher;
+import com.blog.gateway.utils.PathPatternTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtFilter白名单判断：WhiteListProvider使用的匹配树与逐条AntPathMatcher匹配的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhiteListBenchmark {
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/auth/**",
+            "/articles/*/comments",
+            "/articles/list",
+            "/static/**/*.png",
+            "/users/{id}/profile",
+            "/doc.html",
+            "/webjars/**",
+            "/swagger-resources/**",
+            "/v2/api-docs");
+
+    // 命中第一条、命中中间某条、不在白名单中（需要检查全部规则）
+    @Param({"/auth/login", "/articles/42/comments", "/users/42/orders"})
+    public String path;
+
+    private PathPatternTrie<Boolean> trie;
+    private AntPathMatcher antPathMatcher;
+
+    @Setup
+    public void setUp() {
+        trie = PathPatternTrie.compile(PATTERNS);
+        antPathMatcher = new AntPathMatcher();
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return trie.matches(path);
+    }
+
+    @Benchmark
+    public boolean antPathMatcher() {
+        for (String pattern : PATTERNS) {
+            if (antPathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
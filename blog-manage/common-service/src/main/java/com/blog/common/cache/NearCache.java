@@ -0,0 +1,296 @@
+package com.blog.common.cache;
+
+import com.blog.common.config.NearCacheProperty;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 二级缓存中的一个命名空间
+ * <p>
+ * 读取顺序为 本地Caffeine -> Redis -> 加载函数，同一个键的并发加载只会执行一次：
+ * 第一个未命中的线程把一个未完成的future放入本地缓存，然后在自己的线程中读取Redis、调用加载函数，
+ * 其他线程等待同一个future。I/O不在Caffeine的compute中执行，慢查询不会阻塞同一个哈希桶中的其他键。
+ * 加载结果为 null 时缓存一个空值标记（过期时间较短），防止不存在的数据反复穿透到数据库。
+ * 写入和删除会先更新Redis，再通过{@link NearCacheManager}广播失效通知，各实例丢弃本地副本。
+ * <p>
+ * 每个键在Redis中另有一个版本号，写入和删除时加一。加载前和读取Redis一起读出版本号，
+ * 加载完成后只有版本号没有变化且Redis中仍没有该键时才回填（SET NX），
+ * 防止先读到旧数据库记录、在并发的put/evict之后才完成的加载把旧值写回Redis。
+ *
+ * @param <V> 值类型
+ */
+@Slf4j
+public class NearCache<V> {
+    // 空值标记，本地缓存中直接存放该对象，Redis中存放同样内容的字符串
+    static final String NULL_VALUE = "__near_cache_null__";
+    // 版本号键的前缀，不放在命名空间下，避免和业务键冲突
+    private static final String VERSION_PREFIX = "near-cache:version:";
+    // 回填：版本号未变化且键不存在时才写入。KEYS: 值, 版本号；ARGV: 加载前的版本号（不存在为空串）, 值, 过期时间（毫秒）
+    private static final byte[] FILL_SCRIPT = bytes(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end "
+                    + "if redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3], 'NX') then return 1 end "
+                    + "return 0");
+    // 写入并增加版本号。KEYS: 值, 版本号；ARGV: 值, 过期时间（毫秒）, 版本号过期时间（毫秒）
+    private static final byte[] PUT_SCRIPT = bytes(
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[3]) "
+                    + "return 1");
+    // 删除并增加版本号。KEYS: 值, 版本号；ARGV: 版本号过期时间（毫秒）
+    private static final byte[] EVICT_SCRIPT = bytes(
+            "redis.call('DEL', KEYS[1]) "
+                    + "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[1]) "
+                    + "return 1");
+
+    private final String namespace;
+    private final NearCacheProperty.Spec spec;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final NearCacheManager manager;
+    // 值为加载中或已加载的future，加载失败的future会被自动移除
+    private final AsyncCache<String, Object> local;
+    // 版本号的过期时间，不短于值的过期时间，保证加载期间版本号不会先过期
+    private final long versionTtl;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    NearCache(String namespace, NearCacheProperty.Spec spec, RedisTemplate<String, Object> redisTemplate,
+              NearCacheManager manager, MeterRegistry meterRegistry) {
+        this.namespace = namespace;
+        this.spec = spec;
+        this.redisTemplate = redisTemplate;
+        this.manager = manager;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfter(new LocalExpiry(spec.getLocalTtl().toNanos(), spec.getNullTtl().toNanos()))
+                .buildAsync();
+        this.versionTtl = Math.max(spec.getRemoteTtl().toMillis(), spec.getNullTtl().toMillis());
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.remoteHits = counter(meterRegistry, "remote", "hit");
+        this.remoteMisses = counter(meterRegistry, "remote", "miss");
+    }
+
+    /**
+     * 获取缓存的值，不存在时调用加载函数并写入两级缓存
+     *
+     * @param key    键
+     * @param loader 加载函数，可以返回 null
+     * @return 值，不存在时为 null
+     */
+    public V get(String key, Function<String, V> loader) {
+        CompletableFuture<Object> future = local.getIfPresent(key);
+        if (future != null) {
+            localHits.increment();
+            return unwrap(await(future));
+        }
+        localMisses.increment();
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        future = local.asMap().putIfAbsent(key, loading);
+        if (future != null) {
+            // 其他线程正在加载同一个键
+            return unwrap(await(future));
+        }
+        try {
+            Object value = loadRemote(key, loader);
+            loading.complete(value);
+            return unwrap(value);
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 写入缓存，并通知其他实例丢弃本地副本
+     *
+     * @param key   键
+     * @param value 值，为 null 时等同于写入空值标记
+     */
+    public void put(String key, V value) {
+        try {
+            Object stored = value == null ? NULL_VALUE : value;
+            eval(PUT_SCRIPT, key, serializeValue(stored), bytes(String.valueOf(ttl(value))),
+                    bytes(String.valueOf(versionTtl)));
+        } catch (RuntimeException e) {
+            log.warn("写入二级缓存失败，key: {}", redisKey(key), e);
+        }
+        local.synchronous().invalidate(key);
+        manager.publishInvalidation(namespace, key);
+    }
+
+    /**
+     * 删除缓存，并通知其他实例丢弃本地副本
+     *
+     * @param key 键
+     */
+    public void evict(String key) {
+        try {
+            eval(EVICT_SCRIPT, key, bytes(String.valueOf(versionTtl)));
+        } catch (RuntimeException e) {
+            log.warn("删除二级缓存失败，key: {}", redisKey(key), e);
+        }
+        local.synchronous().invalidate(key);
+        manager.publishInvalidation(namespace, key);
+    }
+
+    /**
+     * 只丢弃本实例的本地副本，收到失效通知时调用
+     *
+     * @param key 键，为 null 时丢弃整个命名空间
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.synchronous().invalidateAll();
+        } else {
+            local.synchronous().invalidate(key);
+        }
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    private Object loadRemote(String key, Function<String, V> loader) {
+        // 加载前的版本号，Redis读取失败时为 null，此时不回填
+        byte[] version = null;
+        try {
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKey(redisKey(key)), rawKey(versionKey(key))));
+            if (values != null && values.size() == 2) {
+                if (values.get(0) != null) {
+                    remoteHits.increment();
+                    return redisTemplate.getValueSerializer().deserialize(values.get(0));
+                }
+                version = values.get(1) == null ? new byte[0] : values.get(1);
+            }
+        } catch (RuntimeException e) {
+            // Redis不可用时直接加载，不影响业务
+            log.warn("读取二级缓存失败，key: {}", redisKey(key), e);
+        }
+        remoteMisses.increment();
+        V value = loader.apply(key);
+        if (version != null) {
+            fillRemote(key, value, version);
+        }
+        return value == null ? NULL_VALUE : value;
+    }
+
+    // 加载期间有put或evict时版本号已经变化，放弃回填
+    private void fillRemote(String key, V value, byte[] version) {
+        try {
+            Object stored = value == null ? NULL_VALUE : value;
+            eval(FILL_SCRIPT, key, version, serializeValue(stored), bytes(String.valueOf(ttl(value))));
+        } catch (RuntimeException e) {
+            log.warn("写入二级缓存失败，key: {}", redisKey(key), e);
+        }
+    }
+
+    private void eval(byte[] script, String key, byte[]... args) {
+        byte[][] keysAndArgs = new byte[2 + args.length][];
+        keysAndArgs[0] = rawKey(redisKey(key));
+        keysAndArgs[1] = rawKey(versionKey(key));
+        System.arraycopy(args, 0, keysAndArgs, 2, args.length);
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2, keysAndArgs));
+    }
+
+    private long ttl(V value) {
+        return value == null ? spec.getNullTtl().toMillis() : spec.getRemoteTtl().toMillis();
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serializeValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 等待其他线程的加载结果，加载失败时抛出原始异常
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unwrap(Object value) {
+        return NULL_VALUE.equals(value) ? null : (V) value;
+    }
+
+    private String redisKey(String key) {
+        return namespace + ":" + key;
+    }
+
+    private String versionKey(String key) {
+        return VERSION_PREFIX + namespace + ":" + key;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("blog.near-cache.requests")
+                .tag("namespace", namespace)
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 空值标记使用较短的过期时间
+     */
+    private static final class LocalExpiry implements Expiry<String, Object> {
+        private final long ttl;
+        private final long nullTtl;
+
+        LocalExpiry(long ttl, long nullTtl) {
+            this.ttl = ttl;
+            this.nullTtl = nullTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Object value, long currentTime) {
+            return NULL_VALUE.equals(value) ? Math.min(ttl, nullTtl) : ttl;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
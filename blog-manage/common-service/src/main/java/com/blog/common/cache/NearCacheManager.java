@@ -0,0 +1,114 @@
+package com.blog.common.cache;
+
+import com.blog.common.config.NearCacheProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 二级缓存管理器
+ * <p>
+ * 按命名空间创建{@link NearCache}，并负责通过Redis发布订阅广播失效通知。
+ * 第一次创建命名空间时才订阅失效频道，没有使用二级缓存的服务（例如网关）不会建立订阅连接。
+ * <p>
+ * 失效消息格式为 命名空间 + '\n' + 键。
+ */
+@Slf4j
+public class NearCacheManager implements MessageListener, AutoCloseable {
+    private static final char SEPARATOR = '\n';
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NearCacheProperty property;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+    private volatile RedisMessageListenerContainer listenerContainer;
+
+    public NearCacheManager(RedisConnectionFactory connectionFactory, RedisTemplate<String, Object> redisTemplate,
+                            NearCacheProperty property, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        this.property = property;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取命名空间对应的缓存，不存在时按配置创建
+     *
+     * @param namespace 命名空间，同时作为Redis键的前缀
+     * @param <V>       值类型
+     * @return 缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <V> NearCache<V> getCache(String namespace) {
+        NearCache<?> cache = caches.get(namespace);
+        if (cache == null) {
+            cache = caches.computeIfAbsent(namespace, name ->
+                    new NearCache<>(name, property.getSpec(name), redisTemplate, this, meterRegistry));
+            subscribe();
+        }
+        return (NearCache<V>) cache;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        String namespace = separator < 0 ? body : body.substring(0, separator);
+        String key = separator < 0 ? null : body.substring(separator + 1);
+        NearCache<?> cache = caches.get(namespace);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("关闭二级缓存失效通知订阅失败", e);
+            }
+            listenerContainer = null;
+        }
+    }
+
+    void publishInvalidation(String namespace, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(property.getChannel(), namespace + SEPARATOR + key);
+        } catch (RuntimeException e) {
+            // 发布失败时其他实例的本地副本最多保留localTtl
+            log.warn("发布二级缓存失效通知失败，namespace: {}, key: {}", namespace, key, e);
+        }
+    }
+
+    private void subscribe() {
+        if (listenerContainer != null) {
+            return;
+        }
+        synchronized (this) {
+            if (listenerContainer != null) {
+                return;
+            }
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener(this, new ChannelTopic(property.getChannel()));
+            container.afterPropertiesSet();
+            container.start();
+            listenerContainer = container;
+        }
+    }
+}
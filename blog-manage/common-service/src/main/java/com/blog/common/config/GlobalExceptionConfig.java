@@ -1,15 +1,31 @@
 package com.blog.common.config;
 
+import com.blog.common.exception.BaseException;
 import com.blog.common.exception.handle.HandleGlobalException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class GlobalExceptionConfig {
+
+    /**
+     * 业务异常默认不收集堆栈，排查问题时配置 blog.exception.stack-trace=true 重新开启
+     *
+     * @param stackTrace 是否收集业务异常的堆栈
+     */
+    public GlobalExceptionConfig(@Value("${" + BaseException.STACK_TRACE_PROPERTY + ":false}") boolean stackTrace) {
+        BaseException.setStackTraceEnabled(stackTrace || BaseException.isStackTraceEnabled());
+    }
+
     // 由于common-service不是启动类，所以不能扫描到这个全局异常捕获
     // 所以要将其注册到容器中
     @Bean
-    public HandleGlobalException globalException() {
-        return new HandleGlobalException();
+    public HandleGlobalException globalException(ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                                 ObjectProvider<ObjectMapper> objectMapperProvider) {
+        return new HandleGlobalException(meterRegistryProvider, objectMapperProvider);
     }
 }
@@ -0,0 +1,49 @@
+package com.blog.common.config;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.blog.common.id.SnowflakeIdGenerator;
+import com.blog.common.id.WorkerIdLease;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@ConditionalOnClass(IdentifierGenerator.class)
+public class IdGeneratorConfig {
+
+    /**
+     * 创建雪花ID机器号租约，只有在未配置固定机器号时才会真正访问Redis
+     *
+     * @param redisTemplate Redis模板
+     * @param leaseTtl      租期（秒）
+     * @return WorkerIdLease实例
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public WorkerIdLease workerIdLease(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                       @Value("${blog.id.lease-ttl:60}") long leaseTtl) {
+        return new WorkerIdLease(redisTemplate.getObject(), leaseTtl);
+    }
+
+    /**
+     * 创建雪花ID生成器，同时作为MyBatis-Plus的主键生成器
+     *
+     * @param workerId      固定的机器号，小于0时通过Redis租用
+     * @param workerIdLease 机器号租约
+     * @return SnowflakeIdGenerator实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${blog.id.worker-id:-1}") long workerId,
+                                                     WorkerIdLease workerIdLease) {
+        if (workerId >= 0) {
+            return new SnowflakeIdGenerator(workerId);
+        }
+        workerIdLease.acquire();
+        return new SnowflakeIdGenerator(workerIdLease);
+    }
+}
@@ -0,0 +1,68 @@
+package com.blog.common.config;
+
+import com.blog.common.metrics.MyBatisMetricsInterceptor;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.apache.ibatis.plugin.Interceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@EnableConfigurationProperties(MetricsProperty.class)
+public class MetricsConfig {
+
+    /**
+     * 为指定前缀的计时器开启百分位直方图
+     * <p>
+     * 只发布直方图桶，不在应用内计算百分位（客户端百分位需要为每组标签维护滑动窗口，开销大且无法跨实例聚合），
+     * 同时用最小、最大预期值裁剪桶的数量，生产环境可以一直开启。
+     *
+     * @param property blog.metrics 配置
+     * @return MeterFilter，由Spring Boot Actuator应用到所有MeterRegistry
+     */
+    @Bean
+    public MeterFilter histogramMeterFilter(MetricsProperty property) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !matches(property, id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) property.getHistogramMinimum().toNanos())
+                        .maximumExpectedValue((double) property.getHistogramMaximum().toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    private static boolean matches(MetricsProperty property, String name) {
+        for (String prefix : property.getHistogramPrefixes()) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按Mapper方法记录SQL耗时，只在使用MyBatis的服务中生效
+     */
+    @Configuration
+    @ConditionalOnClass(Interceptor.class)
+    public static class MyBatisMetricsConfig {
+        @Bean
+        public MyBatisMetricsInterceptor myBatisMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+            return new MyBatisMetricsInterceptor(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+        }
+    }
+}
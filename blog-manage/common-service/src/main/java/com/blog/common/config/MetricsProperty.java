@@ -0,0 +1,30 @@
+package com.blog.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 指标配置
+ */
+@Data
+@ConfigurationProperties(prefix = "blog.metrics")
+public class MetricsProperty {
+    // 发布百分位直方图的计时器名称前缀，直方图在Prometheus中聚合计算百分位，不在应用内计算
+    private List<String> histogramPrefixes = new ArrayList<>(Arrays.asList(
+            "http.server.requests",
+            "spring.cloud.gateway.requests",
+            "blog.redis",
+            "blog.mybatis",
+            "auth.bcrypt",
+            "auth.jwt",
+            "auth.captcha",
+            "gateway.jwt"));
+    // 直方图的最小、最大预期值，超出范围的桶不发布，控制每个计时器的时间序列数
+    private Duration histogramMinimum = Duration.ofMillis(1);
+    private Duration histogramMaximum = Duration.ofSeconds(10);
+}
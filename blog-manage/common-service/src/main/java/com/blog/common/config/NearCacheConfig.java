@@ -0,0 +1,46 @@
+package com.blog.common.config;
+
+import com.blog.common.cache.NearCacheManager;
+import com.blog.common.metrics.TimedRedisTemplate;
+import com.blog.common.serializer.CompactRedisSerializer;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+@Configuration
+@ConditionalOnClass({Caffeine.class, RedisConnectionFactory.class})
+@EnableConfigurationProperties(NearCacheProperty.class)
+public class NearCacheConfig {
+    // 二级缓存的值大多是用户、角色等对象，超过该字节数时压缩
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    /**
+     * 创建二级缓存管理器，Redis中的值使用紧凑编码，与默认RedisTemplate的配置无关
+     *
+     * @param connectionFactory     Redis连接工厂
+     * @param property              二级缓存配置
+     * @param meterRegistryProvider 指标注册表，不存在时使用全局注册表
+     * @return NearCacheManager实例
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public NearCacheManager nearCacheManager(RedisConnectionFactory connectionFactory, NearCacheProperty property,
+                                             ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        RedisTemplate<String, Object> template = new TimedRedisTemplate<>(meterRegistry);
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(CompactRedisSerializer.compact(COMPRESS_THRESHOLD, true));
+        template.afterPropertiesSet();
+        return new NearCacheManager(connectionFactory, template, property, meterRegistry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.blog.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存配置，namespaces中未配置的命名空间使用defaults
+ */
+@Data
+@ConfigurationProperties(prefix = "blog.near-cache")
+public class NearCacheProperty {
+    // 失效通知使用的Redis频道
+    private String channel = "blog:near-cache:invalidate";
+    private Spec defaults = new Spec();
+    private Map<String, Spec> namespaces = new HashMap<>();
+
+    /**
+     * 获取命名空间的配置
+     *
+     * @param namespace 命名空间
+     * @return 配置，未单独配置时返回默认配置
+     */
+    public Spec getSpec(String namespace) {
+        return namespaces.getOrDefault(namespace, defaults);
+    }
+
+    @Data
+    public static class Spec {
+        // 本地缓存的过期时间
+        private Duration localTtl = Duration.ofMinutes(1);
+        // 本地缓存的最大条数
+        private long maximumSize = 10000;
+        // Redis缓存的过期时间
+        private Duration remoteTtl = Duration.ofMinutes(30);
+        // 空值的过期时间（本地和Redis），用于防止缓存穿透
+        private Duration nullTtl = Duration.ofSeconds(30);
+    }
+}
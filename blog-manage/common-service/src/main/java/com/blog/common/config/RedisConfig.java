@@ -1,24 +1,69 @@
 package com.blog.common.config;
 
+import com.blog.common.metrics.TimedRedisTemplate;
+import com.blog.common.serializer.CompactRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 @ConditionalOnMissingBean(RedisTemplate.class)  // 新增条件判断
+@EnableConfigurationProperties(RedisSerializerProperty.class)
 public class RedisConfig {
+    public static final String COMPACT_REDIS_TEMPLATE = "compactRedisTemplate";
+
+    /**
+     * 默认的RedisTemplate，值的编码由blog.redis.serializer.codec决定
+     * <p>
+     * 配置了compact-prefixes时，默认模板仍写JSON，但也能读取紧凑编码的数据。
+     */
     @Bean
     @Primary
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory, RedisSerializerProperty property,
+                                                       ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        RedisSerializer<Object> valueSerializer;
+        if (property.isCompact()) {
+            valueSerializer = CompactRedisSerializer.compact(property.getCompressThreshold(), property.isReadLegacyJson());
+        } else if (!property.getCompactPrefixes().isEmpty()) {
+            valueSerializer = CompactRedisSerializer.json();
+        } else {
+            valueSerializer = new GenericJackson2JsonRedisSerializer();
+        }
+        return createTemplate(factory, valueSerializer, meterRegistryProvider);
+    }
+
+    /**
+     * 使用紧凑编码的RedisTemplate，RedisUtil按键前缀选择
+     */
+    @Bean(COMPACT_REDIS_TEMPLATE)
+    public RedisTemplate<String, Object> compactRedisTemplate(RedisConnectionFactory factory, RedisSerializerProperty property,
+                                                              ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return createTemplate(factory,
+                CompactRedisSerializer.compact(property.getCompressThreshold(), property.isReadLegacyJson()),
+                meterRegistryProvider);
+    }
+
+    /**
+     * 创建RedisTemplate，每条命令按命令和键命名空间记录耗时（blog.redis.commands）
+     */
+    private static RedisTemplate<String, Object> createTemplate(RedisConnectionFactory factory,
+                                                                RedisSerializer<Object> valueSerializer,
+                                                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        RedisTemplate<String, Object> template =
+                new TimedRedisTemplate<>(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
         template.setConnectionFactory(factory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(valueSerializer);
         return template;
     }
-}
\ No newline at end of file
+}
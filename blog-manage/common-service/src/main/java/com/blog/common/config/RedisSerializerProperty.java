@@ -0,0 +1,27 @@
+package com.blog.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis值序列化配置
+ */
+@Data
+@ConfigurationProperties(prefix = "blog.redis.serializer")
+public class RedisSerializerProperty {
+    // 默认编码：json（GenericJackson2JsonRedisSerializer）或compact（CompactRedisSerializer）
+    private String codec = "json";
+    // 默认编码为json时，这些前缀的普通缓存（String）改用紧凑编码写入；Set、List、Hash和计数器始终使用默认编码
+    private List<String> compactPrefixes = new ArrayList<>();
+    // 紧凑编码超过该字节数时压缩，小于等于0表示不压缩
+    private int compressThreshold = 1024;
+    // 紧凑编码是否兼容读取旧的JSON数据
+    private boolean readLegacyJson = true;
+
+    public boolean isCompact() {
+        return "compact".equalsIgnoreCase(codec);
+    }
+}
@@ -0,0 +1,59 @@
+package com.blog.common.config;
+
+import com.blog.common.context.UserContextInterceptor;
+import com.blog.common.context.UserContextSigner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class UserContextConfig {
+    // 旧版本内置的默认密钥已经公开，配置成该值时同样拒绝启动
+    private static final String LEGACY_DEFAULT_SECRET = "blog-user-context-secret";
+
+    /**
+     * 创建用户上下文签名工具，网关和下游服务必须配置相同的密钥
+     * <p>
+     * 不提供默认密钥：密钥公开后，能直接访问下游服务的人可以伪造任意用户的X-User-*请求头，
+     * 因此未配置密钥或仍使用旧的默认密钥时直接启动失败。
+     *
+     * @param secret         签名密钥
+     * @param maxSkewSeconds 允许的最大时间偏差（秒）
+     * @return UserContextSigner实例
+     * @throws IllegalStateException 未配置blog.user-context.secret
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public UserContextSigner userContextSigner(@Value("${blog.user-context.secret:}") String secret,
+                                               @Value("${blog.user-context.max-skew:300}") long maxSkewSeconds) {
+        if (!StringUtils.hasText(secret) || LEGACY_DEFAULT_SECRET.equals(secret)) {
+            throw new IllegalStateException("未配置blog.user-context.secret，网关和下游服务必须配置相同的随机密钥");
+        }
+        return new UserContextSigner(secret, maxSkewSeconds);
+    }
+
+    /**
+     * Servlet服务中注册用户上下文拦截器，WebFlux网关中不会生效
+     */
+    @Configuration
+    @ConditionalOnClass(WebMvcConfigurer.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public static class WebMvcUserContextConfig implements WebMvcConfigurer {
+        private final UserContextSigner userContextSigner;
+
+        public WebMvcUserContextConfig(UserContextSigner userContextSigner) {
+            this.userContextSigner = userContextSigner;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new UserContextInterceptor(userContextSigner));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.blog.common.context;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * 响应式用户上下文
+ * <p>
+ * WebFlux中一个请求可能在多个线程间切换，ThreadLocal既不可见也无法及时清理，
+ * 所以用户ID放在Reactor Context中，跟随订阅链传递，请求结束后自然失效。
+ * <p>
+ * 写入：{@code chain.filter(exchange).contextWrite(ReactiveUserContext.withUserId(userId))}
+ * 读取：{@code ReactiveUserContext.getUserId().flatMap(...)}
+ *
+ * @author wan
+ */
+public final class ReactiveUserContext {
+    private static final Class<ReactiveUserContext> USER_ID_KEY = ReactiveUserContext.class;
+
+    private ReactiveUserContext() {
+    }
+
+    /**
+     * 创建只包含用户ID的Context，用于contextWrite
+     *
+     * @param userId 用户ID
+     * @return Reactor Context
+     */
+    public static Context withUserId(Long userId) {
+        return Context.of(USER_ID_KEY, userId);
+    }
+
+    /**
+     * 从当前订阅链的Context中获取用户ID
+     *
+     * @return 用户ID，未设置时为空的Mono
+     */
+    public static Mono<Long> getUserId() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(USER_ID_KEY)));
+    }
+}
@@ -2,6 +2,9 @@ package com.blog.common.context;
 
 /**
  * 用户上下文
+ * <p>
+ * 只用于Servlet服务，由{@link UserContextInterceptor}在请求开始时写入、请求结束时清理；
+ * WebFlux网关请使用{@link ReactiveUserContext}。
  * @author wan
  */
 public class UserContext {
@@ -0,0 +1,37 @@
+package com.blog.common.context;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 用户上下文拦截器
+ * <p>
+ * Servlet服务（例如auth-service）的阻塞桥接：校验网关转发的签名请求头，
+ * 通过后把用户ID放入{@link UserContext}，请求结束后清理，保证线程池中的线程不会残留上一个请求的用户ID。
+ */
+public class UserContextInterceptor implements HandlerInterceptor {
+    private final UserContextSigner signer;
+
+    public UserContextInterceptor(UserContextSigner signer) {
+        this.signer = signer;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long userId = signer.verify(
+                request.getHeader(UserContextSigner.USER_ID_HEADER),
+                request.getHeader(UserContextSigner.TIMESTAMP_HEADER),
+                request.getHeader(UserContextSigner.SIGNATURE_HEADER));
+        if (userId != null) {
+            UserContext.setUserId(userId);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        UserContext.clear();
+    }
+}
@@ -0,0 +1,85 @@
+package com.blog.common.context;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 用户上下文请求头签名工具
+ * <p>
+ * 网关验证JWT后，把用户ID和时间戳用HMAC-SHA256签名写入请求头转发给下游服务；
+ * 下游服务校验签名后再把用户ID放入{@link UserContext}，防止客户端直接伪造用户ID请求头。
+ */
+public class UserContextSigner {
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String TIMESTAMP_HEADER = "X-User-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-User-Signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // 已经初始化好密钥的Mac，每次签名时克隆一份，避免重复解析密钥
+    private final Mac prototype;
+    // 允许的最大时间偏差，单位是秒
+    private final long maxSkewSeconds;
+
+    public UserContextSigner(String secret, long maxSkewSeconds) {
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化用户上下文签名失败", e);
+        }
+        this.maxSkewSeconds = maxSkewSeconds;
+    }
+
+    /**
+     * 对用户ID和时间戳签名
+     *
+     * @param userId    用户ID
+     * @param timestamp 时间戳，单位是秒
+     * @return Base64URL编码的签名
+     */
+    public String sign(long userId, long timestamp) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(userId, timestamp));
+    }
+
+    /**
+     * 校验请求头中的用户上下文
+     *
+     * @param userId    X-User-Id 请求头
+     * @param timestamp X-User-Timestamp 请求头
+     * @param signature X-User-Signature 请求头
+     * @return 校验通过返回用户ID，否则返回 null
+     */
+    public Long verify(String userId, String timestamp, String signature) {
+        if (userId == null || timestamp == null || signature == null) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(userId);
+            long time = Long.parseLong(timestamp);
+            if (Math.abs(System.currentTimeMillis() / 1000 - time) > maxSkewSeconds) {
+                return null;
+            }
+            byte[] expected = hmac(id, time);
+            byte[] actual = Base64.getUrlDecoder().decode(signature);
+            return MessageDigest.isEqual(expected, actual) ? id : null;
+        } catch (IllegalArgumentException e) {
+            // 数字格式或Base64格式错误
+            return null;
+        }
+    }
+
+    private byte[] hmac(long userId, long timestamp) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("当前JVM的HmacSHA256实现不支持克隆", e);
+        }
+        return mac.doFinal((userId + ":" + timestamp).getBytes(StandardCharsets.US_ASCII));
+    }
+}
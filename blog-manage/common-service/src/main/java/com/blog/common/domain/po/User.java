@@ -1,5 +1,7 @@
 package com.blog.common.domain.po;
 
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.AllArgsConstructor;
@@ -16,6 +18,7 @@ import java.time.LocalDateTime;
 @ApiModel(value = "用户实体")
 public class User {
     @ApiModelProperty("用户id")
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     @ApiModelProperty("用户名字")
     private String  username;
@@ -1,5 +1,7 @@
 package com.blog.common.domain.vo;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
@@ -12,6 +14,8 @@ import java.time.LocalDateTime;
 @ApiModel("返回的东西")
 public class UserVo {
     @ApiModelProperty("用户id")
+    // 雪花ID超出了JavaScript的安全整数范围，以字符串返回给前端
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     @ApiModelProperty("用户名字")
     private String  username;
@@ -31,6 +31,9 @@ public enum ErrorCode {
     USER_EXIST("0x0117", "用户已存在"),
     ARGUMENT_IS_NULL("0x0200", "参数为空"),
 
+    // 系统相关错误码
+    SERVER_BUSY("0x0300", "服务繁忙，请稍后再试"),
+
 
 ;
 
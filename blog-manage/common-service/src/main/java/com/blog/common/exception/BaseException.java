@@ -2,28 +2,90 @@ package com.blog.common.exception;
 
 import com.blog.common.enums.ErrorCode;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
 /**
  * 自定义异常基类
+ * <p>
+ * 业务异常（密码错误、验证码过期、参数格式错误等）在正常的请求流程中频繁抛出，
+ * 默认不收集堆栈：收集堆栈要遍历整个Spring MVC和过滤器调用链，在撞库或非法输入洪峰下开销很大，
+ * 而这些异常只需要错误码。排查问题时可以通过 blog.exception.stack-trace=true（Spring配置或JVM系统属性）重新开启。
+ * <p>
+ * 不带cause的异常可以用子类的of方法获取按错误码预先创建的共享实例，连对象分配也省掉；
+ * 共享实例不可写入堆栈、不记录被抑制的异常。开启堆栈时of方法每次返回新实例。
  */
 public class BaseException extends RuntimeException {
-    private final String errorCode;
+    public static final String STACK_TRACE_PROPERTY = "blog.exception.stack-trace";
+
+    private static volatile boolean stackTraceEnabled = Boolean.getBoolean(STACK_TRACE_PROPERTY);
+
+    private final ErrorCode errorCode;
 
     public BaseException(ErrorCode errorCode) {
         super(errorCode.getMessage());
-        this.errorCode = errorCode.getCode();
+        this.errorCode = errorCode;
     }
 
     public BaseException(ErrorCode errorCode, Throwable cause) {
         super(errorCode.getMessage(), cause);
-        this.errorCode = errorCode.getCode();
+        this.errorCode = errorCode;
     }
 
     public BaseException(ErrorCode errorCode, String message) {
         super(message);
-        this.errorCode = errorCode.getCode();
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * 创建共享实例使用的构造方法
+     *
+     * @param errorCode          错误码
+     * @param writableStackTrace 为 false 时实例不可写入堆栈，也不记录被抑制的异常
+     */
+    protected BaseException(ErrorCode errorCode, boolean writableStackTrace) {
+        super(errorCode.getMessage(), null, writableStackTrace, writableStackTrace);
+        this.errorCode = errorCode;
     }
 
     public String getErrorCode() {
+        return errorCode.getCode();
+    }
+
+    public ErrorCode getErrorCodeEnum() {
         return errorCode;
     }
-}
\ No newline at end of file
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return stackTraceEnabled ? super.fillInStackTrace() : this;
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    /**
+     * 开启或关闭业务异常的堆栈，只影响之后创建的异常
+     *
+     * @param enabled 为 true 时收集堆栈
+     */
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    /**
+     * 为每个错误码创建一个共享实例
+     *
+     * @param factory 按错误码创建实例，应使用不可写入堆栈的构造方法
+     * @return 错误码到共享实例的映射，创建后不再修改
+     */
+    protected static <E extends BaseException> Map<ErrorCode, E> preallocate(Function<ErrorCode, E> factory) {
+        Map<ErrorCode, E> instances = new EnumMap<>(ErrorCode.class);
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            instances.put(errorCode, factory.apply(errorCode));
+        }
+        return instances;
+    }
+}
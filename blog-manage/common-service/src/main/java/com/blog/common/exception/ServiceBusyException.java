@@ -0,0 +1,20 @@
+package com.blog.common.exception;
+
+import com.blog.common.enums.ErrorCode;
+
+/**
+ * 服务繁忙异常，资源饱和时快速拒绝请求，全局异常处理中返回503
+ */
+public class ServiceBusyException extends BaseException {
+    public ServiceBusyException(ErrorCode errorCode) {
+        super(errorCode);
+    }
+
+    public ServiceBusyException(ErrorCode errorCode, Throwable cause) {
+        super(errorCode, cause);
+    }
+
+    public ServiceBusyException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+}
@@ -2,10 +2,14 @@ package com.blog.common.exception;
 
 import com.blog.common.enums.ErrorCode;
 
+import java.util.Map;
+
 /**
  * token异常处理类
  */
 public class TokenException extends BaseException {
+    private static final Map<ErrorCode, TokenException> SHARED = preallocate(errorCode -> new TokenException(errorCode, false));
+
     public TokenException(ErrorCode errorCode) {
         super(errorCode);
     }
@@ -17,4 +21,18 @@ public class TokenException extends BaseException {
     public TokenException(ErrorCode errorCode, String message) {
         super(errorCode, message);
     }
+
+    private TokenException(ErrorCode errorCode, boolean writableStackTrace) {
+        super(errorCode, writableStackTrace);
+    }
+
+    /**
+     * 获取异常实例，未开启堆栈时返回按错误码预先创建的共享实例
+     *
+     * @param errorCode 错误码
+     * @return 异常实例
+     */
+    public static TokenException of(ErrorCode errorCode) {
+        return isStackTraceEnabled() ? new TokenException(errorCode) : SHARED.get(errorCode);
+    }
 }
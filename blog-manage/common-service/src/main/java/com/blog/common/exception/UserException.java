@@ -2,7 +2,10 @@ package com.blog.common.exception;
 
 import com.blog.common.enums.ErrorCode;
 
+import java.util.Map;
+
 public class UserException extends BaseException{
+    private static final Map<ErrorCode, UserException> SHARED = preallocate(errorCode -> new UserException(errorCode, false));
 
     public UserException(ErrorCode errorCode) {
         super(errorCode);
@@ -15,4 +18,18 @@ public class UserException extends BaseException{
     public UserException(ErrorCode errorCode, String message) {
         super(errorCode, message);
     }
+
+    private UserException(ErrorCode errorCode, boolean writableStackTrace) {
+        super(errorCode, writableStackTrace);
+    }
+
+    /**
+     * 获取异常实例，未开启堆栈时返回按错误码预先创建的共享实例
+     *
+     * @param errorCode 错误码
+     * @return 异常实例
+     */
+    public static UserException of(ErrorCode errorCode) {
+        return isStackTraceEnabled() ? new UserException(errorCode) : SHARED.get(errorCode);
+    }
 }
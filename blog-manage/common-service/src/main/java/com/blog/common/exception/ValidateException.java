@@ -2,7 +2,11 @@ package com.blog.common.exception;
 
 import com.blog.common.enums.ErrorCode;
 
+import java.util.Map;
+
 public class ValidateException extends BaseException{
+    private static final Map<ErrorCode, ValidateException> SHARED = preallocate(errorCode -> new ValidateException(errorCode, false));
+
     public ValidateException(ErrorCode errorCode) {
         super(errorCode);
     }
@@ -14,4 +18,18 @@ public class ValidateException extends BaseException{
     public ValidateException(ErrorCode errorCode, String message) {
         super(errorCode, message);
     }
+
+    private ValidateException(ErrorCode errorCode, boolean writableStackTrace) {
+        super(errorCode, writableStackTrace);
+    }
+
+    /**
+     * 获取异常实例，未开启堆栈时返回按错误码预先创建的共享实例
+     *
+     * @param errorCode 错误码
+     * @return 异常实例
+     */
+    public static ValidateException of(ErrorCode errorCode) {
+        return isStackTraceEnabled() ? new ValidateException(errorCode) : SHARED.get(errorCode);
+    }
 }
@@ -2,36 +2,98 @@ package com.blog.common.exception.handle;
 
 
 import com.blog.common.domain.vo.Result;
+import com.blog.common.enums.ErrorCode;
 import com.blog.common.exception.BaseException;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import com.blog.common.exception.ServiceBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
-// 全局异常处理
+/**
+ * 全局异常处理
+ * <p>
+ * 错误码是有限的枚举，默认提示信息也是固定的，所以启动时为每个错误码预先生成Result并序列化成JSON字节，
+ * 异常使用默认提示信息时直接写出这些字节，不再格式化字符串、创建Result和调用JSON序列化。
+ * 异常带有自定义提示信息时才按原来的格式临时生成Result。
+ */
 @RestControllerAdvice
 public class HandleGlobalException {
+    private static final String DEFAULT_MESSAGE = "系统内部错误，请稍后再试";
+
+    private final MeterRegistry meterRegistry;
+    // 按错误码和异常类型缓存计数器
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+    // 每个错误码预先序列化的响应体，创建后不再修改
+    private final Map<ErrorCode, byte[]> prebuiltBodies = new EnumMap<>(ErrorCode.class);
+
+    public HandleGlobalException(ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                 ObjectProvider<ObjectMapper> objectMapperProvider) {
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        // 使用应用配置的ObjectMapper，保证与控制器返回的Result格式一致
+        ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            try {
+                prebuiltBodies.put(errorCode, objectMapper.writeValueAsBytes(
+                        Result.error(formatMessage(errorCode.getCode(), errorCode.getMessage()))));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("序列化错误码响应失败：" + errorCode, e);
+            }
+        }
+    }
+
     @ExceptionHandler(BaseException.class)
-    public Result handleBaseException(BaseException e) {
-        // 创建一个异常响应实体
-        ExceptionResponseEntity exceptionResponseEntity = new ExceptionResponseEntity(
-                e.getErrorCode(),
-                Objects.toString(e.getMessage(), "系统内部错误，请稍后再试")
-        );
-        // 这个错误码是必须要设置
-        exceptionResponseEntity.setErrorCode(e.getErrorCode());
+    public ResponseEntity<?> handleBaseException(BaseException e) {
+        return errorResponse(ResponseEntity.ok(), e);
+    }
+
+    /**
+     * 服务繁忙时返回503，并提示客户端稍后重试
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<?> handleServiceBusyException(ServiceBusyException e) {
+        return errorResponse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1"), e);
+    }
+
+    private ResponseEntity<?> errorResponse(ResponseEntity.BodyBuilder builder, BaseException e) {
+        countError(e);
+        ErrorCode errorCode = e.getErrorCodeEnum();
+        String message = e.getMessage();
+        if (Objects.equals(message, errorCode.getMessage())) {
+            return builder.contentType(MediaType.APPLICATION_JSON).body(prebuiltBodies.get(errorCode));
+        }
         // 封装错误信息，返回给前端
-        String message = String.format("错误码(%s) %s",
-                exceptionResponseEntity.errorCode, exceptionResponseEntity.errorMessage);
-        return Result.error(message);
+        return builder.body(Result.error(formatMessage(errorCode.getCode(), Objects.toString(message, DEFAULT_MESSAGE))));
+    }
+
+    private static String formatMessage(String errorCode, String errorMessage) {
+        return "错误码(" + errorCode + ") " + errorMessage;
     }
 
-    @Data
-    @AllArgsConstructor
-    private static class ExceptionResponseEntity {
-        private String errorCode;
-        private String errorMessage;
+    /**
+     * 按错误码统计异常次数（blog.errors）
+     */
+    private void countError(BaseException e) {
+        String code = Objects.toString(e.getErrorCode(), "unknown");
+        String exception = e.getClass().getSimpleName();
+        errorCounters.computeIfAbsent(code + '\n' + exception, key -> Counter.builder("blog.errors")
+                .description("按错误码统计的业务异常次数")
+                .tag("code", code)
+                .tag("exception", exception)
+                .register(meterRegistry))
+                .increment();
     }
 }
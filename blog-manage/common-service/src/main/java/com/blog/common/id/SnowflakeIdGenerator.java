@@ -0,0 +1,130 @@
+package com.blog.common.id;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花ID生成器
+ * <p>
+ * ID由41位毫秒时间戳 + 10位机器号 + 12位序列号组成，同一机器内单调递增，不同机器之间不会重复。
+ * 最近一次生成的ID（时间戳、机器号、序列号）整体保存在同一个AtomicLong中，通过CAS更新，生成过程无锁、不分配对象。
+ * <p>
+ * 同一毫秒内序列号用完时直接进位到下一毫秒；发生时钟回拨时继续沿用上一次的时间戳递增，
+ * 等系统时钟追上后再恢复正常，因此既不会阻塞也不会产生重复ID。
+ * <p>
+ * 机器号通过{@link WorkerIdLease}租用时，每次生成前都会检查租约：租约失效时抛出异常而不是继续使用可能已被占用的机器号。
+ * 机器号只在加锁的换号过程中修改，普通生成沿用状态中的机器号，不会用线程自己读到的旧机器号生成ID；
+ * 换号时时间戳先进位一毫秒，保证换号前后的ID仍然递增。
+ * <p>
+ * 同时实现了MyBatis-Plus的{@link IdentifierGenerator}，实体主键使用{@code @TableId(type = IdType.ASSIGN_ID)}即可。
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+    // 起始时间 2024-01-01 00:00:00 UTC
+    public static final long EPOCH = 1704067200000L;
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    // 租用的机器号，使用固定机器号时为 null
+    private final WorkerIdLease lease;
+    // 毫秒时钟，测试时可以替换
+    private final LongSupplier clock;
+    // 最近一次生成的ID，机器号也保存在其中，初始时间戳为0
+    private final AtomicLong state;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(checkWorkerId(workerId), null, System::currentTimeMillis);
+    }
+
+    /**
+     * 使用租用的机器号，调用前租约必须已经租用成功
+     *
+     * @param lease 机器号租约
+     */
+    public SnowflakeIdGenerator(WorkerIdLease lease) {
+        this(lease.currentWorkerId(), lease, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, WorkerIdLease lease, LongSupplier clock) {
+        this.state = new AtomicLong(workerId << SEQUENCE_BITS);
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 正数ID
+     * @throws IllegalStateException 机器号租约已失效
+     */
+    public long nextId() {
+        if (lease != null) {
+            long worker = lease.currentWorkerId();
+            if (worker != workerId(state.get())) {
+                switchWorkerId();
+            }
+        }
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            next = next(prev, clock.getAsLong() - EPOCH);
+        } while (!state.compareAndSet(prev, next));
+        return next;
+    }
+
+    /**
+     * 在上一个ID的基础上计算下一个ID，机器号保持不变
+     * 时钟前进时序列号从0开始，否则（同一毫秒或时钟回拨）序列号加1，溢出时进位到下一毫秒
+     */
+    private static long next(long prev, long timestamp) {
+        long prevTimestamp = prev >>> TIMESTAMP_SHIFT;
+        long workerBits = prev & (MAX_WORKER_ID << SEQUENCE_BITS);
+        if (timestamp > prevTimestamp) {
+            return (timestamp << TIMESTAMP_SHIFT) | workerBits;
+        }
+        if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+            return prev + 1;
+        }
+        return ((prevTimestamp + 1) << TIMESTAMP_SHIFT) | workerBits;
+    }
+
+    // 换用租约当前的机器号，时间戳进位一毫秒，新ID一定大于换号前的ID
+    private synchronized void switchWorkerId() {
+        long worker = lease.currentWorkerId();
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            if (workerId(prev) == worker) {
+                return;
+            }
+            long timestamp = Math.max(clock.getAsLong() - EPOCH, (prev >>> TIMESTAMP_SHIFT) + 1);
+            next = (timestamp << TIMESTAMP_SHIFT) | (worker << SEQUENCE_BITS);
+        } while (!state.compareAndSet(prev, next));
+    }
+
+    private static long workerId(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    private static long checkWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器号必须在0到" + MAX_WORKER_ID + "之间：" + workerId);
+        }
+        return workerId;
+    }
+
+    @Override
+    public Long nextId(Object entity) {
+        return nextId();
+    }
+
+    public long getWorkerId() {
+        return workerId(state.get());
+    }
+}
@@ -0,0 +1,158 @@
+package com.blog.common.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过Redis租用雪花ID的机器号
+ * <p>
+ * 启动时从随机位置开始依次尝试 SET blog:id:worker:{n} token NX EX ttl，抢到的编号即为本实例的机器号，
+ * 之后每隔ttl/3续期一次；实例正常关闭时释放，异常退出时等待过期后可被其他实例复用。
+ * <p>
+ * 每次占用或续期成功后，租约在本地记录的有效期（发出命令前的时间 + ttl）内一定仍归本实例所有。
+ * 超过有效期仍未续期成功（例如Redis长时间不可用）时{@link #currentWorkerId()}直接抛出异常，
+ * 发现编号已被其他实例占用时重新租用一个空闲的编号，避免两个实例用同一个机器号生成重复ID。
+ */
+@Slf4j
+public class WorkerIdLease implements AutoCloseable {
+    private static final String KEY_PREFIX = "blog:id:worker:";
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    // 租期，单位是秒
+    private final long ttl;
+    // 本实例的租约标识
+    private final String token = UUID.randomUUID().toString();
+    private ScheduledExecutorService renewer;
+    private volatile String key;
+    private volatile long workerId = -1;
+    // 租约的本地有效期，System.nanoTime()的值
+    private volatile long validUntil;
+
+    public WorkerIdLease(StringRedisTemplate redisTemplate, long ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * 租用一个空闲的机器号并开始定时续期
+     *
+     * @return 机器号
+     * @throws IllegalStateException 所有机器号都已被占用
+     */
+    public synchronized long acquire() {
+        if (key != null) {
+            throw new IllegalStateException("已经租用了机器号：" + key);
+        }
+        if (!acquireFree()) {
+            throw new IllegalStateException("没有空闲的雪花ID机器号");
+        }
+        startRenewal();
+        return workerId;
+    }
+
+    /**
+     * 获取当前租用的机器号
+     *
+     * @return 机器号
+     * @throws IllegalStateException 未租用机器号，或租约已超过本地有效期
+     */
+    public long currentWorkerId() {
+        long current = workerId;
+        if (current < 0 || System.nanoTime() - validUntil >= 0) {
+            throw new IllegalStateException("雪花ID机器号租约已失效，暂停生成ID：" + key);
+        }
+        return current;
+    }
+
+    // 从随机位置开始依次尝试占用空闲的编号
+    private boolean acquireFree() {
+        int size = (int) SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            long candidateId = (start + i) % size;
+            String candidate = KEY_PREFIX + candidateId;
+            long requestedAt = System.nanoTime();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(candidate, token, ttl, TimeUnit.SECONDS))) {
+                key = candidate;
+                workerId = candidateId;
+                extend(requestedAt);
+                log.info("租用雪花ID机器号：{}", candidateId);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 命令在requestedAt之后才到达Redis，本地有效期不会晚于键的实际过期时间
+    private void extend(long requestedAt) {
+        validUntil = requestedAt + TimeUnit.SECONDS.toNanos(ttl);
+    }
+
+    private void startRenewal() {
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worker-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, ttl / 3);
+        renewer.scheduleAtFixedRate(this::renew, period, period, TimeUnit.SECONDS);
+    }
+
+    private synchronized void renew() {
+        if (key == null) {
+            return;
+        }
+        try {
+            long requestedAt = System.nanoTime();
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key), token, String.valueOf(ttl));
+            if (renewed != null && renewed == 1) {
+                extend(requestedAt);
+                return;
+            }
+            // 租约已过期（例如Redis长时间不可用），尝试重新占用同一个编号
+            requestedAt = System.nanoTime();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl, TimeUnit.SECONDS))) {
+                extend(requestedAt);
+                return;
+            }
+            // 编号已被其他实例占用，立即停止使用，改为租用新的编号
+            validUntil = System.nanoTime();
+            log.error("雪花ID机器号{}已被其他实例占用，重新租用机器号", key);
+            if (!acquireFree()) {
+                log.error("没有空闲的雪花ID机器号，暂停生成ID直到租用成功");
+            }
+        } catch (RuntimeException e) {
+            log.warn("续期雪花ID机器号失败：{}", key, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (key == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), token);
+        } catch (RuntimeException e) {
+            log.warn("释放雪花ID机器号失败：{}", key, e);
+        }
+        key = null;
+        workerId = -1;
+    }
+}
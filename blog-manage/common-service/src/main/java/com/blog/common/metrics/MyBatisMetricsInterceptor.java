@@ -0,0 +1,72 @@
+package com.blog.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按Mapper方法记录SQL执行耗时的MyBatis拦截器
+ * <p>
+ * 指标名为blog.mybatis.calls，标签为mapper（Mapper接口的简单类名）、method（方法名）和result（success/error）。
+ * 耗时包含MyBatis映射结果的时间，不包含获取连接之前的排队时间。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class MyBatisMetricsInterceptor implements Interceptor {
+    static final String METRIC_NAME = "blog.mybatis.calls";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MyBatisMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        String result = "success";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            result = "error";
+            throw e;
+        } finally {
+            timer(statement.getId(), result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String statementId, String result) {
+        return timers.computeIfAbsent(statementId + '\n' + result, key -> {
+            // 语句ID的格式为 Mapper全限定名.方法名
+            int methodIndex = statementId.lastIndexOf('.');
+            String mapper = methodIndex < 0 ? statementId : statementId.substring(0, methodIndex);
+            String method = methodIndex < 0 ? statementId : statementId.substring(methodIndex + 1);
+            return Timer.builder(METRIC_NAME)
+                    .description("Mapper方法耗时")
+                    .tag("mapper", mapper.substring(mapper.lastIndexOf('.') + 1))
+                    .tag("method", method)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.blog.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按命令和键命名空间记录耗时的RedisTemplate
+ * <p>
+ * 通过{@link RedisTemplate#preProcessConnection}给每次使用的连接套一层代理，
+ * RedisUtil、RedisBatch、NearCache等所有经过该模板的操作都会被计时，不需要逐个方法埋点。
+ * 指标名为blog.redis.commands，标签为command（连接方法名，例如get、hSet、evalSha）、
+ * namespace（键的命名空间）和result（success/error）。
+ * <p>
+ * 命名空间取键的前两段（以冒号分隔），并且不包含最后一段，例如 auth:user:id:1 的命名空间为 auth:user，
+ * captcha:xxx 的命名空间为 captcha，保证标签取值有限。只计时第一个参数是键的命令；管道和事务中的命令只是入队，不计时。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TimedRedisTemplate<K, V> extends RedisTemplate<K, V> {
+    static final String METRIC_NAME = "blog.redis.commands";
+    private static final String NO_NAMESPACE = "none";
+    private static final int NAMESPACE_DEPTH = 2;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimedRedisTemplate(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+        RedisConnection target = super.preProcessConnection(connection, existingConnection);
+        return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                new Class<?>[]{RedisConnection.class}, new TimingHandler(target));
+    }
+
+    /**
+     * 从命令参数中取出键的命名空间
+     *
+     * @return 不是键值命令时返回 null
+     */
+    static String namespace(String command, Object[] args) {
+        if (args == null || args.length == 0) {
+            return null;
+        }
+        byte[] key = null;
+        if (command.startsWith("eval")) {
+            // eval/evalSha(script, returnType, numKeys, keysAndArgs...)
+            if (args.length == 4 && args[2] instanceof Integer && (Integer) args[2] > 0
+                    && args[3] instanceof byte[][] && ((byte[][]) args[3]).length > 0) {
+                key = ((byte[][]) args[3])[0];
+            } else {
+                return NO_NAMESPACE;
+            }
+        } else if (args[0] instanceof byte[]) {
+            key = (byte[]) args[0];
+        }
+        if (key == null) {
+            return null;
+        }
+        // 只扫描前两个分隔符，不对整个键解码
+        int end = -1;
+        int segments = 0;
+        for (int i = 0; i < key.length && segments < NAMESPACE_DEPTH; i++) {
+            if (key[i] == ':') {
+                end = i;
+                segments++;
+            }
+        }
+        return end <= 0 ? NO_NAMESPACE : new String(key, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private Timer timer(String command, String namespace, String result) {
+        return timers.computeIfAbsent(command + '\n' + namespace + '\n' + result, key -> Timer.builder(METRIC_NAME)
+                .description("Redis命令耗时")
+                .tag("command", command)
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    private class TimingHandler implements InvocationHandler {
+        private final RedisConnection target;
+
+        TimingHandler(RedisConnection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String command = method.getName();
+            String namespace = namespace(command, args);
+            if (namespace == null || target.isPipelined() || target.isQueueing()) {
+                return invokeTarget(method, args);
+            }
+            long start = System.nanoTime();
+            String result = "success";
+            try {
+                return invokeTarget(method, args);
+            } catch (Throwable e) {
+                result = "error";
+                throw e;
+            } finally {
+                timer(command, namespace, result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
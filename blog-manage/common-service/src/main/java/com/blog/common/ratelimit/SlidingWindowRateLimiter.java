@@ -0,0 +1,115 @@
+package com.blog.common.ratelimit;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Redis有序集合的滑动窗口限流器
+ * <p>
+ * 每个键对应一个有序集合，成员为一次请求，分数为请求时间（毫秒）。
+ * 一次调用可以同时检查多条规则，Lua脚本先检查全部规则，全部通过后才记录本次请求，
+ * 因此某条规则拒绝时不会占用其他规则的配额。只检查不记录的规则（{@link Rule#checkOnly}）只参与判断，
+ * 适合"先检查、确认请求有效后再计数"的场景。时间取自Redis服务器，多个实例之间不受本地时钟偏差影响。
+ * <p>
+ * 同一次调用中的多个键会在一个脚本中访问，集群模式下需要用哈希标签保证它们落在同一个槽中。
+ */
+@Slf4j
+public class SlidingWindowRateLimiter {
+    private static final RedisScript<Long> SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() "
+                    + "local time = redis.call('time') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "for i = 1, #KEYS do "
+                    + "  local limit = tonumber(ARGV[i * 3 - 1]) "
+                    + "  local window = tonumber(ARGV[i * 3]) "
+                    + "  redis.call('zremrangebyscore', KEYS[i], 0, now - window) "
+                    + "  if redis.call('zcard', KEYS[i]) >= limit then "
+                    + "    local oldest = redis.call('zrange', KEYS[i], 0, 0, 'withscores') "
+                    + "    return math.max(tonumber(oldest[2]) + window - now, 1) "
+                    + "  end "
+                    + "end "
+                    + "for i = 1, #KEYS do "
+                    + "  if ARGV[i * 3 + 1] == '1' then "
+                    + "    redis.call('zadd', KEYS[i], now, ARGV[1]) "
+                    + "    redis.call('pexpire', KEYS[i], ARGV[i * 3]) "
+                    + "  end "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    // 有序集合成员的前缀和序号，保证同一毫秒内的多次请求不会互相覆盖
+    private final String memberPrefix = UUID.randomUUID().toString() + ":";
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlidingWindowRateLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 检查并记录一次请求
+     *
+     * @param rules 限流规则，全部通过时才会在需要记录的规则中记录本次请求
+     * @return 通过时返回0，否则返回最早可以重试的毫秒数；Redis不可用时放行并返回0
+     */
+    public long tryAcquire(Rule... rules) {
+        if (rules.length == 0) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(rules.length);
+        Object[] args = new Object[rules.length * 3 + 1];
+        args[0] = memberPrefix + sequence.incrementAndGet();
+        for (int i = 0; i < rules.length; i++) {
+            keys.add(rules[i].getKey());
+            args[i * 3 + 1] = String.valueOf(rules[i].getLimit());
+            args[i * 3 + 2] = String.valueOf(rules[i].getWindow().toMillis());
+            args[i * 3 + 3] = rules[i].isRecord() ? "1" : "0";
+        }
+        try {
+            Long retryAfter = redisTemplate.execute(SCRIPT, keys, args);
+            return retryAfter == null ? 0 : retryAfter;
+        } catch (RuntimeException e) {
+            log.warn("滑动窗口限流检查失败，本次放行", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 限流规则：窗口时间内同一个键最多允许limit次请求
+     */
+    @Getter
+    public static class Rule {
+        private final String key;
+        private final int limit;
+        private final Duration window;
+        // 通过时是否记录本次请求
+        private final boolean record;
+
+        public Rule(String key, int limit, Duration window) {
+            this(key, limit, window, true);
+        }
+
+        private Rule(String key, int limit, Duration window, boolean record) {
+            this.key = key;
+            this.limit = limit;
+            this.window = window;
+            this.record = record;
+        }
+
+        /**
+         * 只检查是否已达到限制、不记录本次请求的规则
+         */
+        public static Rule checkOnly(String key, int limit, Duration window) {
+            return new Rule(key, limit, window, false);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.blog.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 按GCRA（通用信元速率算法）实现，效果与令牌桶相同：桶容量为capacity，每秒补充permitsPerSecond个令牌。
+ * 只保存一个"理论到达时间"，取令牌时用一次CAS推进该时间，不需要定时补充令牌，也不需要加锁。
+ */
+public class TokenBucket {
+    // 补充一个令牌需要的纳秒数
+    private final long intervalNanos;
+    // 允许的突发量对应的纳秒数，即桶满时可以连续取出的令牌数 * intervalNanos
+    private final long burstNanos;
+    // 理论到达时间，早于当前时间时视为桶已满
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity         桶容量，即允许的最大突发请求数
+     * @param permitsPerSecond 每秒补充的令牌数
+     */
+    public TokenBucket(int capacity, double permitsPerSecond) {
+        if (capacity <= 0 || permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity和permitsPerSecond必须大于0");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 尝试取出一个令牌
+     *
+     * @return 取到令牌时返回 true
+     */
+    public boolean tryAcquire() {
+        return tryAcquireNanos() == 0;
+    }
+
+    /**
+     * 尝试取出一个令牌
+     *
+     * @return 取到令牌时返回0，否则返回距离下一个令牌可用还需等待的纳秒数
+     */
+    public long tryAcquireNanos() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            // 桶已满时从当前时间开始计算，空闲期间积累的令牌不会超过容量
+            long base = current - now < 0 ? now : current;
+            long next = base + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 判断当前是否有可用的令牌，不取出令牌
+     *
+     * @return 有可用令牌时返回 true
+     */
+    public boolean hasPermit() {
+        long now = System.nanoTime();
+        long current = theoreticalArrival.get();
+        long base = current - now < 0 ? now : current;
+        return base + intervalNanos - now - burstNanos <= 0;
+    }
+
+    /**
+     * 归还一个令牌，用于取出令牌后请求被其他条件拒绝的情况；桶已满时不做任何事
+     */
+    public void release() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            if (current - now <= 0) {
+                return;
+            }
+            if (theoreticalArrival.compareAndSet(current, current - intervalNanos)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.blog.common.serializer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑的Redis值序列化器
+ * <p>
+ * 格式为 魔数0xFE | 类型 | 数据：字符串直接写UTF-8字节，浮点数和布尔值写定长二进制，
+ * 其他对象写一次类名再写不带类型信息的JSON。数据超过压缩阈值时用Deflate压缩，类型字节的最高位表示已压缩。
+ * <p>
+ * Long和Integer不加魔数，直接写十进制文本，与JSON格式写出的字节完全相同，
+ * 因此INCR/DECR可以直接作用于紧凑编码写入的计数器，读取时与JSON格式一样，能放进int的返回Integer，否则返回Long。
+ * <p>
+ * 读取时不是以魔数开头的数据按旧的{@link GenericJackson2JsonRedisSerializer}格式解析，
+ * 因此可以在不清空Redis的情况下切换序列化方式。
+ * <p>
+ * 注意：对象内部的多态字段（例如{@code Map<String, Object>}中的值）不再保留具体类型，
+ * 这类数据请继续使用JSON编码。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    private static final byte MAGIC = (byte) 0xFE;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_BYTES = 6;
+    private static final byte TYPE_OBJECT = 7;
+    private static final byte COMPRESSED = (byte) 0x80;
+    private static final int HEADER_LENGTH = 2;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<String, Class<?>> classCache = new ConcurrentHashMap<>();
+    // 超过该字节数的数据会被压缩，小于等于0表示不压缩
+    private final int compressThreshold;
+    // 写入时是否仍使用JSON格式
+    private final boolean writeJson;
+    // 旧的JSON格式，为 null 时不兼容旧数据
+    private final GenericJackson2JsonRedisSerializer json;
+
+    private CompactRedisSerializer(int compressThreshold, boolean writeJson, boolean readJson) {
+        this.compressThreshold = compressThreshold;
+        this.writeJson = writeJson;
+        this.json = writeJson || readJson ? new GenericJackson2JsonRedisSerializer() : null;
+    }
+
+    /**
+     * 以紧凑格式写入
+     *
+     * @param compressThreshold 压缩阈值（字节），小于等于0表示不压缩
+     * @param readJson          是否兼容读取旧的JSON格式
+     * @return 序列化器
+     */
+    public static CompactRedisSerializer compact(int compressThreshold, boolean readJson) {
+        return new CompactRedisSerializer(compressThreshold, false, readJson);
+    }
+
+    /**
+     * 仍以JSON格式写入，但可以读取紧凑格式，用于按键前缀切换编码时的默认模板
+     *
+     * @return 序列化器
+     */
+    public static CompactRedisSerializer json() {
+        return new CompactRedisSerializer(0, true, true);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (writeJson) {
+            return json.serialize(value);
+        }
+        byte type;
+        byte[] data;
+        if (value instanceof String) {
+            type = TYPE_STRING;
+            data = ((String) value).getBytes(StandardCharsets.UTF_8);
+        } else if (value instanceof Long || value instanceof Integer) {
+            return value.toString().getBytes(StandardCharsets.US_ASCII);
+        } else if (value instanceof Double) {
+            type = TYPE_DOUBLE;
+            data = ByteBuffer.allocate(Double.BYTES).putDouble((Double) value).array();
+        } else if (value instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+            data = new byte[]{(byte) ((Boolean) value ? 1 : 0)};
+        } else if (value instanceof byte[]) {
+            type = TYPE_BYTES;
+            data = (byte[]) value;
+        } else {
+            type = TYPE_OBJECT;
+            data = writeObject(value);
+        }
+        if (compressThreshold > 0 && data.length > compressThreshold) {
+            return encode((byte) (type | COMPRESSED), deflate(data));
+        }
+        return encode(type, data);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            Object number = isInteger(bytes) ? parseInteger(bytes) : null;
+            if (number != null) {
+                return number;
+            }
+            if (json == null) {
+                throw new SerializationException("不是紧凑格式的数据，且未开启旧JSON格式兼容");
+            }
+            return json.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("紧凑格式的数据缺少类型");
+        }
+        byte type = bytes[1];
+        ByteBuffer data = ByteBuffer.wrap(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        if ((type & COMPRESSED) != 0) {
+            type = (byte) (type & ~COMPRESSED);
+            data = ByteBuffer.wrap(inflate(data));
+        }
+        switch (type) {
+            case TYPE_STRING:
+                return new String(data.array(), data.position(), data.remaining(), StandardCharsets.UTF_8);
+            // 旧版本以定长二进制写入的整数
+            case TYPE_LONG:
+                return data.getLong();
+            case TYPE_INTEGER:
+                return data.getInt();
+            case TYPE_DOUBLE:
+                return data.getDouble();
+            case TYPE_BOOLEAN:
+                return data.get() != 0;
+            case TYPE_BYTES:
+                byte[] copy = new byte[data.remaining()];
+                data.get(copy);
+                return copy;
+            case TYPE_OBJECT:
+                return readObject(data);
+            default:
+                throw new SerializationException("未知的紧凑格式类型：" + type);
+        }
+    }
+
+    // 十进制整数文本，最长为Long.MIN_VALUE的20个字符
+    private static boolean isInteger(byte[] bytes) {
+        int start = bytes[0] == '-' ? 1 : 0;
+        if (bytes.length == start || bytes.length > 20) {
+            return false;
+        }
+        for (int i = start; i < bytes.length; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 超出long范围时返回 null，交给JSON格式解析
+    private static Object parseInteger(byte[] bytes) {
+        try {
+            long value = Long.parseLong(new String(bytes, StandardCharsets.US_ASCII));
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private byte[] writeObject(Object value) {
+        byte[] className = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 + className.length);
+            out.write(className.length >>> 8);
+            out.write(className.length);
+            out.write(className);
+            objectMapper.writeValue(out, value);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("对象序列化失败：" + value.getClass().getName(), e);
+        }
+    }
+
+    private Object readObject(ByteBuffer data) {
+        int nameLength = data.getShort() & 0xFFFF;
+        String className = new String(data.array(), data.position(), nameLength, StandardCharsets.UTF_8);
+        data.position(data.position() + nameLength);
+        Class<?> type = classCache.computeIfAbsent(className, name -> {
+            try {
+                return ClassUtils.forName(name, getClass().getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SerializationException("找不到类：" + name, e);
+            }
+        });
+        try {
+            return objectMapper.readValue(data.array(), data.position(), data.remaining(), type);
+        } catch (IOException e) {
+            throw new SerializationException("对象反序列化失败：" + className, e);
+        }
+    }
+
+    private static byte[] encode(byte type, byte[] data) {
+        byte[] bytes = new byte[HEADER_LENGTH + data.length];
+        bytes[0] = MAGIC;
+        bytes[1] = type;
+        System.arraycopy(data, 0, bytes, HEADER_LENGTH, data.length);
+        return bytes;
+    }
+
+    // 压缩后的数据以原始长度开头，解压时可以一次分配好数组
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + Integer.BYTES);
+        out.write(data.length >>> 24);
+        out.write(data.length >>> 16);
+        out.write(data.length >>> 8);
+        out.write(data.length);
+        byte[] buffer = new byte[Math.min(data.length, 8192)];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(ByteBuffer data) {
+        byte[] result = new byte[data.getInt()];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data.array(), data.position(), data.remaining());
+        try {
+            int length = 0;
+            while (length < result.length && !inflater.finished()) {
+                int n = inflater.inflate(result, length, result.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != result.length) {
+                throw new SerializationException("压缩数据不完整");
+            }
+        } catch (DataFormatException e) {
+            throw new SerializationException("压缩数据格式错误", e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,230 @@
+package com.blog.common.utils;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Redis批量操作
+ * <p>
+ * 先把多个命令加入队列，调用{@link #execute()}时通过一次pipeline发送，每个命令的结果写回对应的{@link Response}：
+ * <pre>{@code
+ * RedisBatch batch = redisUtil.batch();
+ * RedisBatch.Response<Object> captcha = batch.get(captchaKey);
+ * batch.set(tokenKey, token, 30, TimeUnit.MINUTES);
+ * batch.execute();
+ * Object value = captcha.get();
+ * }</pre>
+ * 普通缓存（get、set）和{@link RedisUtil}一样按键前缀选择编码（blog.redis.serializer.compact-prefixes），
+ * 与单条读写的数据可以互相读取；Hash、Set和过期时间始终使用默认模板。
+ * 批量操作不是事务，命令之间不保证原子性，只是减少了网络往返次数。
+ * 实例不是线程安全的，一个实例只能执行一次。
+ */
+public class RedisBatch {
+    private final RedisTemplate<String, Object> redisTemplate;
+    // 按键选择普通缓存使用的模板，与RedisUtil的单条读写一致
+    private final Function<String, RedisTemplate<String, Object>> valueTemplates;
+    private final List<Function<RedisOperations<String, Object>, ?>> commands = new ArrayList<>();
+    private final List<Response<?>> responses = new ArrayList<>();
+    private boolean executed;
+
+    RedisBatch(RedisTemplate<String, Object> redisTemplate,
+               Function<String, RedisTemplate<String, Object>> valueTemplates) {
+        this.redisTemplate = redisTemplate;
+        this.valueTemplates = valueTemplates;
+    }
+
+    /**
+     * 获取普通缓存的值（GET）
+     *
+     * @param key 键
+     * @return 值，不存在时为 null
+     */
+    public Response<Object> get(String key) {
+        RedisSerializer<?> serializer = valueTemplates.apply(key).getValueSerializer();
+        return add(operations -> operations.opsForValue().get(key),
+                result -> result instanceof byte[] ? serializer.deserialize((byte[]) result) : result);
+    }
+
+    /**
+     * 设置普通缓存的值（SET）
+     *
+     * @param key   键
+     * @param value 值
+     * @return 是否成功
+     */
+    public Response<Boolean> set(String key, Object value) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = rawValue(key, value);
+        return add(operations -> operations.execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(rawKey, rawValue)));
+    }
+
+    /**
+     * 设置普通缓存的值和过期时间（SET PX）
+     *
+     * @param key      键
+     * @param value    值
+     * @param time     时间
+     * @param timeUnit 时间单位
+     * @return 是否成功
+     */
+    public Response<Boolean> set(String key, Object value, long time, TimeUnit timeUnit) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = rawValue(key, value);
+        return add(operations -> operations.execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(rawKey, rawValue, Expiration.from(time, timeUnit), SetOption.upsert())));
+    }
+
+    /**
+     * 设置缓存的过期时间（PEXPIRE）
+     *
+     * @param key      键
+     * @param time     时间
+     * @param timeUnit 时间单位
+     * @return 键存在并设置成功时为 true
+     */
+    public Response<Boolean> expire(String key, long time, TimeUnit timeUnit) {
+        return add(operations -> operations.expire(key, time, timeUnit));
+    }
+
+    /**
+     * 向 Hash 缓存中放入一个键值对（HSET）
+     *
+     * @param key   键
+     * @param item  项
+     * @param value 值
+     * @return 新增项时为 true，覆盖已有项时为 false
+     */
+    public Response<Boolean> hset(String key, String item, Object value) {
+        return add(operations -> {
+            operations.opsForHash().put(key, item, value);
+            return null;
+        });
+    }
+
+    /**
+     * 向 Set 缓存中添加元素（SADD）
+     *
+     * @param key    键
+     * @param values 值，可以是多个
+     * @return 成功添加的元素个数
+     */
+    public Response<Long> sadd(String key, Object... values) {
+        return add(operations -> operations.opsForSet().add(key, values));
+    }
+
+    /**
+     * 通过一次pipeline发送队列中的所有命令，并把结果写回各个Response
+     */
+    public void execute() {
+        if (executed) {
+            throw new IllegalStateException("RedisBatch只能执行一次");
+        }
+        executed = true;
+        if (commands.isEmpty()) {
+            return;
+        }
+        // 结果保留原始字节，由各个Response按对应的编码解码
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for (Function<RedisOperations<String, Object>, ?> command : commands) {
+                    command.apply(redisOperations);
+                }
+                return null;
+            }
+        }, RedisSerializer.byteArray());
+        if (results.size() != responses.size()) {
+            throw new IllegalStateException("pipeline返回了" + results.size() + "个结果，预期" + responses.size() + "个");
+        }
+        for (int i = 0; i < results.size(); i++) {
+            responses.get(i).complete(results.get(i));
+        }
+    }
+
+    /**
+     * 已加入队列的命令数量
+     *
+     * @return 命令数量
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    private <T> Response<T> add(Function<RedisOperations<String, Object>, ?> command) {
+        return add(command, Function.identity());
+    }
+
+    private <T> Response<T> add(Function<RedisOperations<String, Object>, ?> command, Function<Object, ?> decoder) {
+        if (executed) {
+            throw new IllegalStateException("RedisBatch已经执行，不能再添加命令");
+        }
+        Response<T> response = new Response<>(decoder);
+        commands.add(command);
+        responses.add(response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    // 普通缓存的值按键对应的模板编码
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(String key, Object value) {
+        return ((RedisSerializer<Object>) valueTemplates.apply(key).getValueSerializer()).serialize(value);
+    }
+
+    /**
+     * 批量操作中单个命令的结果，{@link RedisBatch#execute()}之后才能读取
+     *
+     * @param <T> 结果类型
+     */
+    public static final class Response<T> {
+        // 把pipeline返回的原始结果转换为命令结果
+        private final Function<Object, ?> decoder;
+        private T value;
+        private boolean done;
+
+        private Response(Function<Object, ?> decoder) {
+            this.decoder = decoder;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value) {
+            this.value = (T) decoder.apply(value);
+            this.done = true;
+        }
+
+        /**
+         * 获取命令结果
+         *
+         * @return 命令结果
+         * @throws IllegalStateException 批量操作还没有执行
+         */
+        public T get() {
+            if (!done) {
+                throw new IllegalStateException("RedisBatch还没有执行");
+            }
+            return value;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.blog.common.utils;
 
+import com.blog.common.config.RedisConfig;
+import com.blog.common.config.RedisSerializerProperty;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -11,14 +20,52 @@ import java.util.concurrent.TimeUnit;
 public class RedisUtil {
 
 
+    // 写入后设置过期时间的Lua脚本，ARGV[1]是毫秒数，写入和PEXPIRE在同一次往返中原子执行
+    private static final RedisScript<Long> HASH_PUT_WITH_EXPIRATION_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[1])", Long.class);
+    private static final RedisScript<Long> SET_ADD_WITH_EXPIRATION_SCRIPT = new DefaultRedisScript<>(
+            "local count = 0 " +
+                    "for i = 2, #ARGV do count = count + redis.call('sadd', KEYS[1], ARGV[i]) end " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+                    "return count", Long.class);
+    private static final RedisScript<Long> LIST_PUSH_WITH_EXPIRATION_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do redis.call('rpush', KEYS[1], ARGV[i]) end " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[1])", Long.class);
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    // 使用紧凑编码的模板，未配置按前缀切换编码时为 null
+    private final RedisTemplate<String, Object> compactRedisTemplate;
+    // 使用紧凑编码写入的键前缀
+    private final String[] compactPrefixes;
+
     @Autowired
-    public RedisUtil(RedisTemplate<String, Object> redisTemplate) {
+    public RedisUtil(RedisTemplate<String, Object> redisTemplate,
+                     @Qualifier(RedisConfig.COMPACT_REDIS_TEMPLATE) ObjectProvider<RedisTemplate<String, Object>> compactRedisTemplate,
+                     ObjectProvider<RedisSerializerProperty> serializerProperty) {
         this.redisTemplate = redisTemplate;
+        RedisSerializerProperty property = serializerProperty.getIfAvailable();
+        if (property == null || property.isCompact() || property.getCompactPrefixes().isEmpty()) {
+            this.compactRedisTemplate = null;
+            this.compactPrefixes = new String[0];
+        } else {
+            this.compactRedisTemplate = compactRedisTemplate.getIfAvailable();
+            this.compactPrefixes = property.getCompactPrefixes().toArray(new String[0]);
+        }
     }
 
     // =============================common============================
 
+    /**
+     * 创建批量操作，多个命令通过一次pipeline发送
+     *
+     * @return 新的批量操作
+     */
+    public RedisBatch batch() {
+        return new RedisBatch(redisTemplate, this::valueTemplateFor);
+    }
+
     /**
      * 设置缓存的过期时间
      *
@@ -130,7 +177,7 @@ public class RedisUtil {
             return null;
         }
         try {
-            return redisTemplate.opsForValue().get(key);
+            return valueTemplateFor(key).opsForValue().get(key);
         } catch (Exception e) {
             logError("获取普通缓存失败，key: " + key, e);
             return null;
@@ -149,7 +196,7 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForValue().set(key, value);
+            valueTemplateFor(key).opsForValue().set(key, value);
             return true;
         } catch (Exception e) {
             logError("放入普通缓存失败，key: " + key, e);
@@ -171,7 +218,7 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForValue().set(key, value, time, timeUnit);
+            valueTemplateFor(key).opsForValue().set(key, value, time, timeUnit);
             return true;
         } catch (Exception e) {
             logError("放入普通缓存并设置时间失败，key: " + key, e);
@@ -195,6 +242,27 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 键不存在时设置普通缓存的值并设置过期时间（SET NX PX）
+     *
+     * @param key      键
+     * @param value    值
+     * @param time     时间
+     * @param timeUnit 时间单位
+     * @return 设置成功返回 true，键已存在或设置失败返回 false
+     */
+    public boolean setStringCacheValueIfAbsent(String key, Object value, long time, TimeUnit timeUnit) {
+        if (key == null || value == null || time <= 0) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(valueTemplateFor(key).opsForValue().setIfAbsent(key, value, time, timeUnit));
+        } catch (Exception e) {
+            logError("键不存在时放入普通缓存失败，key: " + key, e);
+            return false;
+        }
+    }
+
     /**
      * 对普通缓存的值进行递增操作
      *
@@ -306,8 +374,14 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForHash().putAll(key, map);
-            return setExpirationTime(key, time, timeUnit);
+            Object[] args = new Object[map.size() * 2 + 1];
+            args[0] = rawMillis(time, timeUnit);
+            int i = 1;
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                args[i++] = rawHashKey(entry.getKey());
+                args[i++] = rawHashValue(entry.getValue());
+            }
+            return executeScript(HASH_PUT_WITH_EXPIRATION_SCRIPT, key, args) == 1;
         } catch (Exception e) {
             logError("放入 Hash 缓存并设置时间失败，key: " + key, e);
             return false;
@@ -362,8 +436,8 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForHash().put(key, item, value);
-            return setExpirationTime(key, time, timeUnit);
+            return executeScript(HASH_PUT_WITH_EXPIRATION_SCRIPT, key,
+                    rawMillis(time, timeUnit), rawHashKey(item), rawHashValue(value)) == 1;
         } catch (Exception e) {
             logError("向 Hash 表中放入数据并设置时间失败，key: " + key + ", item: " + item, e);
             return false;
@@ -532,9 +606,12 @@ public class RedisUtil {
             return 0;
         }
         try {
-            Long count = redisTemplate.opsForSet().add(key, values);
-            setExpirationTime(key, time, timeUnit);
-            return count;
+            Object[] args = new Object[values.length + 1];
+            args[0] = rawMillis(time, timeUnit);
+            for (int i = 0; i < values.length; i++) {
+                args[i + 1] = rawValue(values[i]);
+            }
+            return executeScript(SET_ADD_WITH_EXPIRATION_SCRIPT, key, args);
         } catch (Exception e) {
             logError("向 Set 缓存中添加元素并设置过期时间失败，key: " + key, e);
             return 0;
@@ -683,9 +760,7 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForList().rightPush(key, value);
-            setExpirationTime(key, time, timeUnit);
-            return true;
+            return executeScript(LIST_PUSH_WITH_EXPIRATION_SCRIPT, key, rawMillis(time, timeUnit), rawValue(value)) == 1;
         } catch (Exception e) {
             logError("向 List 缓存右侧添加元素并设置过期时间失败，key: " + key, e);
             return false;
@@ -738,9 +813,12 @@ public class RedisUtil {
             return false;
         }
         try {
-            redisTemplate.opsForList().rightPushAll(key, value);
-            setExpirationTime(key, time, timeUnit);
-            return true;
+            Object[] args = new Object[value.size() + 1];
+            args[0] = rawMillis(time, timeUnit);
+            for (int i = 0; i < value.size(); i++) {
+                args[i + 1] = rawValue(value.get(i));
+            }
+            return executeScript(LIST_PUSH_WITH_EXPIRATION_SCRIPT, key, args) == 1;
         } catch (Exception e) {
             logError("向 List 缓存右侧添加多个元素并设置过期时间失败，key: " + key, e);
             return false;
@@ -800,6 +878,52 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 按键前缀选择普通缓存（String）的模板，两个模板都能读取对方写入的数据，区别只在写入时的编码
+     * <p>
+     * 只有整体读写的普通缓存按前缀切换编码。Set、List的成员判断和删除、Hash的字段值都按序列化后的字节匹配，
+     * 同一个值换一种编码就匹配不上，因此这些结构以及计数器一律使用默认模板的固定编码。
+     */
+    private RedisTemplate<String, Object> valueTemplateFor(String key) {
+        if (compactRedisTemplate != null) {
+            for (String prefix : compactPrefixes) {
+                if (key.startsWith(prefix)) {
+                    return compactRedisTemplate;
+                }
+            }
+        }
+        return redisTemplate;
+    }
+
+    /**
+     * 执行只有一个键的Lua脚本，参数必须已经序列化为字节数组
+     */
+    private long executeScript(RedisScript<Long> script, String key, Object... args) {
+        Long result = redisTemplate.execute(script, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                Collections.singletonList(key), args);
+        return result == null ? 0 : result;
+    }
+
+    // 脚本参数使用与默认模板相同的序列化方式，保证与其他方法写入的Set、List成员字节一致
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashKey(Object hashKey) {
+        return ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(hashKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashValue(Object hashValue) {
+        return ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(hashValue);
+    }
+
+    private static byte[] rawMillis(long time, TimeUnit timeUnit) {
+        return String.valueOf(timeUnit.toMillis(time)).getBytes(StandardCharsets.US_ASCII);
+    }
+
     // 简单的错误日志记录方法，可根据实际情况替换为日志框架
     private void logError(String message, Exception e) {
         System.err.println(message);
@@ -0,0 +1,125 @@
+package com.blog.common.cache;
+
+import com.blog.common.config.NearCacheProperty;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NearCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadsEachKeyOnceWithoutBlockingOtherKeys() throws Exception {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        NearCache<String> cache = new NearCache<>("test", new NearCacheProperty.Spec(), redisTemplate,
+                mock(NearCacheManager.class), new SimpleMeterRegistry());
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] slow = new Future<?>[3];
+            for (int i = 0; i < slow.length; i++) {
+                slow[i] = executor.submit(() -> cache.get("slow", key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "value";
+                }));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // 慢加载进行中，其他键照常读取
+            assertEquals("other", executor.submit(() -> cache.get("other", key -> "other")).get(5, TimeUnit.SECONDS));
+
+            release.countDown();
+            for (Future<?> future : slow) {
+                assertEquals("value", future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals("value", cache.get("slow", key -> "reloaded"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doesNotCacheFailedLoads() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        NearCache<String> cache = new NearCache<>("test", new NearCacheProperty.Spec(), redisTemplate,
+                mock(NearCacheManager.class), new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> cache.get("key", key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("value", cache.get("key", key -> "value"));
+        assertNull(cache.get("missing", key -> null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fillsOnlyIfVersionIsUnchanged() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        when(redisTemplate.getKeySerializer()).thenReturn((RedisSerializer) RedisSerializer.string());
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) RedisSerializer.string());
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        // Redis中没有值，版本号为3
+        when(stringCommands.mGet(any(byte[].class), any(byte[].class)))
+                .thenReturn(Arrays.asList(null, "3".getBytes(StandardCharsets.UTF_8)));
+        List<Object[]> scripts = new ArrayList<>();
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), any()))
+                .thenAnswer(invocation -> {
+                    scripts.add(invocation.getArguments());
+                    return 1L;
+                });
+        NearCache<String> cache = new NearCache<>("test", new NearCacheProperty.Spec(), redisTemplate,
+                mock(NearCacheManager.class), new SimpleMeterRegistry());
+
+        assertEquals("value", cache.get("key", key -> "value"));
+
+        assertEquals(1, scripts.size());
+        Object[] fill = scripts.get(0);
+        assertTrue(new String((byte[]) fill[0], StandardCharsets.UTF_8).contains("NX"));
+        assertEquals("test:key", new String((byte[]) fill[3], StandardCharsets.UTF_8));
+        // 回填时带上加载前读到的版本号，加载期间版本号变化时脚本放弃写入
+        assertEquals("3", new String((byte[]) fill[5], StandardCharsets.UTF_8));
+        assertEquals("value", new String((byte[]) fill[6], StandardCharsets.UTF_8));
+    }
+}
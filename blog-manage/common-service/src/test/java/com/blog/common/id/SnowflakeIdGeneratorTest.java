@@ -0,0 +1,130 @@
+package com.blog.common.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnowflakeIdGeneratorTest {
+    private static final long WORKER_ID = 5;
+
+    @Test
+    void idsIncreaseAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID);
+        int threads = 4;
+        int perThread = 20000;
+        List<long[]> results = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long[] ids = new long[perThread];
+            results.add(ids);
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<Long> unique = new HashSet<>();
+        for (long[] ids : results) {
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(ids[i] > 0);
+                assertEquals(WORKER_ID, (ids[i] >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+                // 每个线程看到的ID严格递增
+                assertTrue(i == 0 || ids[i] > ids[i - 1]);
+                unique.add(ids[i]);
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    void keepsIncreasingWhenClockMovesBackwards() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, null, now::get);
+        long before = generator.nextId();
+
+        // 时钟回拨1秒，继续沿用上一次的时间戳递增
+        now.addAndGet(-1000);
+        long previous = before;
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+
+        // 时钟追上之后按新的时间戳生成
+        now.addAndGet(60_000);
+        long after = generator.nextId();
+        assertTrue(after > previous);
+        assertEquals(now.get() - SnowflakeIdGenerator.EPOCH,
+                after >>> (SnowflakeIdGenerator.WORKER_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS));
+    }
+
+    @Test
+    void carriesSequenceOverflowIntoNextMillisecond() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, null, now::get);
+        long previous = 0;
+        for (int i = 0; i < 3 * (1 << SnowflakeIdGenerator.SEQUENCE_BITS); i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refusesToGenerateAfterLeaseExpires() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+
+        // 租期为0，占用成功后立即超过本地有效期
+        try (WorkerIdLease lease = new WorkerIdLease(redisTemplate, 0)) {
+            lease.acquire();
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, lease, System::currentTimeMillis);
+            assertThrows(IllegalStateException.class, generator::nextId);
+        }
+    }
+
+    @Test
+    void switchesWorkerIdWithoutGoingBackwards() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        WorkerIdLease lease = mock(WorkerIdLease.class);
+        when(lease.currentWorkerId()).thenReturn(1L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, lease, now::get);
+        long before = generator.nextId();
+        assertEquals(1, (before >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+
+        // 租约换成新的机器号，时钟没有前进
+        when(lease.currentWorkerId()).thenReturn(2L);
+        long after = generator.nextId();
+        assertEquals(2, (after >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        assertEquals(2, generator.getWorkerId());
+        assertTrue(after > before);
+        // 换号时时间戳进位一毫秒，不会和换号前同一毫秒的ID共用时间戳
+        int timestampShift = SnowflakeIdGenerator.WORKER_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS;
+        assertEquals((before >>> timestampShift) + 1, after >>> timestampShift);
+    }
+}
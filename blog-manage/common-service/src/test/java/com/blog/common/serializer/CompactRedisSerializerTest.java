@@ -0,0 +1,92 @@
+package com.blog.common.serializer;
+
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactRedisSerializerTest {
+    private final CompactRedisSerializer compact = CompactRedisSerializer.compact(64, true);
+
+    @Test
+    void roundTripsSupportedTypes() {
+        for (Object value : Arrays.asList("验证码", "", 3.5d, true, false, 42, -7, Long.MAX_VALUE)) {
+            assertEquals(value, compact.deserialize(compact.serialize(value)));
+        }
+        byte[] bytes = {1, 2, 3};
+        assertArrayEquals(bytes, (byte[]) compact.deserialize(compact.serialize(bytes)));
+        assertNull(compact.deserialize(compact.serialize(null)));
+
+        Sample sample = sample(3);
+        assertEquals(sample, compact.deserialize(compact.serialize(sample)));
+    }
+
+    @Test
+    void compressesLargeValues() {
+        String text = String.join("", Collections.nCopies(100, "blog-"));
+        byte[] bytes = compact.serialize(text);
+        assertTrue(bytes.length < text.length());
+        assertEquals(text, compact.deserialize(bytes));
+
+        Sample sample = sample(50);
+        assertEquals(sample, compact.deserialize(compact.serialize(sample)));
+    }
+
+    @Test
+    void writesIntegersAsDecimalText() {
+        // 与JSON格式相同，INCR/DECR可以直接作用于写入的值
+        assertEquals("42", new String(compact.serialize(42L), StandardCharsets.US_ASCII));
+        assertEquals("-7", new String(compact.serialize(-7), StandardCharsets.US_ASCII));
+        assertEquals(42, compact.deserialize("42".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(1L << 40, compact.deserialize(String.valueOf(1L << 40).getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(7, CompactRedisSerializer.compact(0, false).deserialize("7".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void readsLegacyJson() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        Sample sample = sample(3);
+        assertEquals(sample, compact.deserialize(json.serialize(sample)));
+        assertEquals("text", compact.deserialize(json.serialize("text")));
+        assertEquals(12, compact.deserialize(json.serialize(12L)));
+
+        assertThrows(SerializationException.class,
+                () -> CompactRedisSerializer.compact(0, false).deserialize(json.serialize(sample)));
+    }
+
+    @Test
+    void jsonModeWritesJsonAndReadsCompact() {
+        CompactRedisSerializer jsonMode = CompactRedisSerializer.json();
+        Sample sample = sample(3);
+        assertEquals(sample, new GenericJackson2JsonRedisSerializer().deserialize(jsonMode.serialize(sample)));
+        assertEquals(sample, jsonMode.deserialize(compact.serialize(sample)));
+        assertEquals("text", jsonMode.deserialize(compact.serialize("text")));
+    }
+
+    private static Sample sample(int tags) {
+        Sample sample = new Sample();
+        sample.setId(1L << 40);
+        sample.setName("张三");
+        sample.setTags(new ArrayList<>(Collections.nCopies(tags, "tag")));
+        return sample;
+    }
+
+    @Data
+    public static class Sample {
+        private Long id;
+        private String name;
+        private List<String> tags;
+    }
+}
@@ -0,0 +1,31 @@
+package com.blog.gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * 网关的数据源
+     * <p>
+     * 网关只在后台线程中低频读取白名单等配置数据，请求链路上从不访问数据库，
+     * 所以这里不引入连接池，用SimpleDriverDataSource按需建立连接。
+     * 只有配置了spring.datasource.url时才会创建，未配置时网关只使用本地默认配置。
+     *
+     * @param properties spring.datasource 配置
+     * @return 数据源
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.datasource", name = "url")
+    public DataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+    }
+}
@@ -27,6 +27,10 @@ public class LogDetail {
     private String hostName;
     @ApiModelProperty(value = "mac地址")
     private String macAddress;
+    @ApiModelProperty(value = "响应状态码")
+    private Integer statusCode;
+    @ApiModelProperty(value = "耗时（毫秒）")
+    private Long costTime;
     @ApiModelProperty(value = "创建时间")
     private LocalDateTime createTime;
 }
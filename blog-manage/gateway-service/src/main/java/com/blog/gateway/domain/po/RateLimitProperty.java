@@ -0,0 +1,74 @@
+package com.blog.gateway.domain.po;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 网关限流配置
+ * <p>
+ * 令牌桶的容量或速率不大于0时表示不限制。各Map的键为路由ID（见GatewayConfig）。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperty {
+    private boolean enabled = true;
+    // 每条路由在单个网关实例上的总令牌桶，未单独配置的路由使用默认值
+    private Bucket defaultRoute = new Bucket(2000, 1000);
+    private Map<String, Bucket> routes = new HashMap<>();
+    // 每个用户（未登录时每个IP）在每条路由上的令牌桶
+    private Bucket defaultClient = new Bucket(50, 20);
+    private Map<String, Bucket> clients = new HashMap<>();
+    // 最多保存的客户端令牌桶数量，长时间没有请求的自动淘汰
+    private long maximumClients = 100000;
+    // 所有网关实例共享的Redis配额
+    private Global global = new Global();
+
+    public Bucket getRouteBucket(String routeId) {
+        return routes.getOrDefault(routeId, defaultRoute);
+    }
+
+    public Bucket getClientBucket(String routeId) {
+        return clients.getOrDefault(routeId, defaultClient);
+    }
+
+    public long getGlobalLimit(String routeId) {
+        return global.getLimits().getOrDefault(routeId, global.getDefaultLimit());
+    }
+
+    @Data
+    public static class Bucket {
+        // 桶容量，即允许的突发请求数
+        private int capacity;
+        // 每秒补充的令牌数
+        private double permitsPerSecond;
+
+        public Bucket() {
+        }
+
+        public Bucket(int capacity, double permitsPerSecond) {
+            this.capacity = capacity;
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public boolean isUnlimited() {
+            return capacity <= 0 || permitsPerSecond <= 0;
+        }
+    }
+
+    @Data
+    public static class Global {
+        // 默认关闭，开启后每个请求多一次Redis访问
+        private boolean enabled = false;
+        // 固定窗口长度
+        private Duration window = Duration.ofSeconds(1);
+        // 每个窗口内所有实例合计允许的请求数，不大于0时不限制
+        private long defaultLimit = 0;
+        private Map<String, Long> limits = new HashMap<>();
+    }
+}
@@ -0,0 +1,232 @@
+package com.blog.gateway.filters;
+
+import com.blog.gateway.domain.po.LogDetail;
+import com.blog.gateway.service.AccessLogWriter;
+import com.blog.gateway.utils.PathPatternTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 访问日志过滤器
+ * <p>
+ * 在请求结束时填充{@link LogDetail}并交给{@link AccessLogWriter}，请求线程上只有内存操作。
+ * 只记录JSON和文本类型的响应体，并且最多保留配置的字节数，超出部分直接丢弃，不会缓存整个响应。
+ * 认证相关的请求头（Authorization、Cookie）不会被记录；登录、注册等接口的响应体中带有JWT，
+ * 匹配gateway.access-log.exclude-body-paths的路径不记录响应体，其余响应体中的token、password字段值也会被替换掉。
+ */
+@Slf4j
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+    // 需要脱敏的JSON字段：password以及以token结尾的字段，响应体被截断时值可能没有结束引号
+    private static final Pattern SENSITIVE_FIELD_PATTERN = Pattern.compile(
+            "(\"(?:password|[A-Za-z_]*[Tt]oken)\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*(?:\"|$)");
+    private static final String MASK = "$1\"***\"";
+
+    private final AccessLogWriter accessLogWriter;
+    private final boolean enabled;
+    // 最多记录的响应体字节数，不大于0时不记录响应体
+    private final int maxBodySize;
+    // 不记录响应体的路径
+    private final PathPatternTrie<Boolean> excludeBodyPaths;
+    // 网关本机信息，启动时获取一次
+    private final String hostName;
+    private final String macAddress;
+
+    public AccessLogFilter(AccessLogWriter accessLogWriter,
+                           @Value("${gateway.access-log.enabled:true}") boolean enabled,
+                           @Value("${gateway.access-log.max-body-size:2048}") int maxBodySize,
+                           @Value("${gateway.access-log.exclude-body-paths:/auth/**}") String[] excludeBodyPaths) {
+        this.accessLogWriter = accessLogWriter;
+        this.enabled = enabled;
+        this.maxBodySize = maxBodySize;
+        this.excludeBodyPaths = PathPatternTrie.compile(Arrays.asList(excludeBodyPaths));
+        InetAddress localHost = null;
+        try {
+            localHost = InetAddress.getLocalHost();
+        } catch (Exception e) {
+            log.warn("获取本机地址失败", e);
+        }
+        this.hostName = localHost == null ? null : localHost.getHostName();
+        this.macAddress = macAddress(localHost);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        long startTime = System.nanoTime();
+        BodyCapture capture = maxBodySize > 0 && !excludeBodyPaths.matches(exchange.getRequest().getPath().value())
+                ? new BodyCapture(maxBodySize) : null;
+        ServerWebExchange logged = capture == null ? exchange
+                : exchange.mutate().response(new CapturingResponse(exchange.getResponse(), capture)).build();
+        return chain.filter(logged)
+                .doFinally(signal -> accessLogWriter.submit(buildLogDetail(exchange, capture, startTime)));
+    }
+
+    private LogDetail buildLogDetail(ServerWebExchange exchange, BodyCapture capture, long startTime) {
+        ServerHttpRequest request = exchange.getRequest();
+        LogDetail logDetail = new LogDetail();
+        logDetail.setIpAddress(clientIp(request));
+        logDetail.setRequestUrl(request.getPath().value());
+        logDetail.setRequestMethod(request.getMethodValue());
+        logDetail.setRequestParams(request.getURI().getRawQuery());
+        logDetail.setRequestHeaders(headersToString(request.getHeaders()));
+        logDetail.setResponseBody(capture == null ? null : capture.toString());
+        logDetail.setHostName(hostName);
+        logDetail.setMacAddress(macAddress);
+        HttpStatus status = exchange.getResponse().getStatusCode();
+        logDetail.setStatusCode(status == null ? null : status.value());
+        logDetail.setCostTime((System.nanoTime() - startTime) / 1_000_000);
+        logDetail.setCreateTime(LocalDateTime.now());
+        return logDetail;
+    }
+
+    private static String headersToString(HttpHeaders headers) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            String name = entry.getKey();
+            if (HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name) || HttpHeaders.COOKIE.equalsIgnoreCase(name)) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(name).append(": ").append(String.join(",", entry.getValue()));
+        }
+        return builder.toString();
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return null;
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    private static String macAddress(InetAddress localHost) {
+        try {
+            NetworkInterface networkInterface = localHost == null ? null : NetworkInterface.getByInetAddress(localHost);
+            byte[] hardwareAddress = networkInterface == null ? null : networkInterface.getHardwareAddress();
+            if (hardwareAddress == null) {
+                // 本机地址解析到回环网卡时，取第一块有硬件地址的网卡
+                Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+                while (hardwareAddress == null && interfaces != null && interfaces.hasMoreElements()) {
+                    hardwareAddress = interfaces.nextElement().getHardwareAddress();
+                }
+            }
+            if (hardwareAddress == null) {
+                return null;
+            }
+            StringBuilder builder = new StringBuilder(hardwareAddress.length * 3);
+            for (byte b : hardwareAddress) {
+                if (builder.length() > 0) {
+                    builder.append('-');
+                }
+                builder.append(String.format("%02X", b));
+            }
+            return builder.toString();
+        } catch (Exception e) {
+            log.warn("获取本机mac地址失败", e);
+            return null;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 必须在NettyWriteResponseFilter之前执行，响应体才会经过CapturingResponse
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /**
+     * 响应体片段，最多保留limit个字节
+     */
+    private static class BodyCapture {
+        private final byte[] bytes;
+        private int length;
+        private boolean truncated;
+
+        BodyCapture(int limit) {
+            this.bytes = new byte[limit];
+        }
+
+        void append(DataBuffer buffer) {
+            int readable = buffer.readableByteCount();
+            int count = Math.min(readable, bytes.length - length);
+            if (count > 0) {
+                // 只读取不移动读指针，后续写出的内容不受影响
+                int readPosition = buffer.readPosition();
+                for (int i = 0; i < count; i++) {
+                    bytes[length + i] = buffer.getByte(readPosition + i);
+                }
+                length += count;
+            }
+            if (count < readable) {
+                truncated = true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            String body = SENSITIVE_FIELD_PATTERN.matcher(new String(bytes, 0, length, StandardCharsets.UTF_8))
+                    .replaceAll(MASK);
+            return truncated ? body + "...(truncated)" : body;
+        }
+    }
+
+    private static class CapturingResponse extends ServerHttpResponseDecorator {
+        private final BodyCapture capture;
+
+        CapturingResponse(ServerHttpResponse delegate, BodyCapture capture) {
+            super(delegate);
+            this.capture = capture;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isTextual(getHeaders().getContentType())) {
+                return super.writeWith(body);
+            }
+            return super.writeWith(Flux.from(body).doOnNext(capture::append));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(publisher -> publisher));
+        }
+
+        private static boolean isTextual(MediaType contentType) {
+            return contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                    || "text".equals(contentType.getType())
+                    || contentType.getSubtype().endsWith("+json"));
+        }
+    }
+}
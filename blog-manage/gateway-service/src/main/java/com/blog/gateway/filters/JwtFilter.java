@@ -1,8 +1,10 @@
 package com.blog.gateway.filters;
 
-import cn.hutool.core.text.AntPathMatcher;
-import com.blog.common.context.UserContext;
-import com.blog.gateway.utils.JwtUtil;
+import com.blog.common.context.ReactiveUserContext;
+import com.blog.common.context.UserContextSigner;
+import com.blog.gateway.service.WhiteListProvider;
+import com.blog.gateway.utils.TokenCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -14,31 +16,37 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.List;
-
 @Component
 public class JwtFilter implements GlobalFilter, Ordered {
     // 定义Token前缀
     private static final String TOKEN_PREFIX = "Bearer ";
     // 定义Token前缀长度
     private static final int TOKEN_PREFIX_LENGTH = TOKEN_PREFIX.length();
-    // 白名单 TODO 后续会改为从数据库中获取
-    private static final List<String> WHITE_LIST = Arrays.asList(
-            "/auth/**"
-    );
-    private AntPathMatcher antPathMatcher = new AntPathMatcher();
+    @Autowired
+    private TokenCache tokenCache;
+    // 白名单，从数据库加载并在后台刷新
+    @Autowired
+    private WhiteListProvider whiteListProvider;
+    @Autowired
+    private UserContextSigner userContextSigner;
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         // 获取当前请求
         ServerHttpRequest request = exchange.getRequest();
         if (isWhiteList(request.getPath().value())) {
+            // 白名单请求不携带用户上下文，移除客户端伪造的用户上下文请求头
+            if (request.getHeaders().containsKey(UserContextSigner.USER_ID_HEADER)) {
+                exchange = exchange.mutate()
+                        .request(request.mutate().headers(this::removeUserContextHeaders).build())
+                        .build();
+            }
             return chain.filter(exchange);
         }
         // 从请求中提取JWT令牌
         String token = extractToken(request);
-        // 检查令牌是否为空或无效
-        if (token == null || JwtUtil.validateToken(token) == null) {
+        // 检查令牌是否为空，不为空则验签（命中缓存时跳过验签）并解析出用户ID
+        Long userId = token == null ? null : tokenCache.resolveUserId(token);
+        if (userId == null) {
             // 获取当前响应
             ServerHttpResponse response = exchange.getResponse();
             // 设置未授权状态码
@@ -46,10 +54,27 @@ public class JwtFilter implements GlobalFilter, Ordered {
             // 结束响应，返回错误信息
             return response.setComplete();
         }
-        // 解析令牌中的用户ID，并设置到用户上下文中
-        UserContext.setUserId(JwtUtil.pareToken(token));
-        // 继续处理链中的下一个过滤器或处理函数
-        return chain.filter(exchange);
+        // 将签名后的用户ID写入请求头，转发给下游服务
+        long timestamp = System.currentTimeMillis() / 1000;
+        String signature = userContextSigner.sign(userId, timestamp);
+        String userIdValue = String.valueOf(userId);
+        ServerHttpRequest mutatedRequest = request.mutate()
+                .headers(headers -> {
+                    removeUserContextHeaders(headers);
+                    headers.set(UserContextSigner.USER_ID_HEADER, userIdValue);
+                    headers.set(UserContextSigner.TIMESTAMP_HEADER, String.valueOf(timestamp));
+                    headers.set(UserContextSigner.SIGNATURE_HEADER, signature);
+                })
+                .build();
+        // 继续处理链中的下一个过滤器或处理函数，用户ID通过Reactor Context传给后续过滤器
+        return chain.filter(exchange.mutate().request(mutatedRequest).build())
+                .contextWrite(ReactiveUserContext.withUserId(userId));
+    }
+
+    private void removeUserContextHeaders(HttpHeaders headers) {
+        headers.remove(UserContextSigner.USER_ID_HEADER);
+        headers.remove(UserContextSigner.TIMESTAMP_HEADER);
+        headers.remove(UserContextSigner.SIGNATURE_HEADER);
     }
     private String extractToken(ServerHttpRequest request) {
         String authorizationHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
@@ -60,12 +85,7 @@ public class JwtFilter implements GlobalFilter, Ordered {
     }
 
     private boolean isWhiteList(String path) {
-        for (String whiteListPath : WHITE_LIST) {
-            if (antPathMatcher.match(whiteListPath, path)) {
-                return true;
-            }
-        }
-        return false;
+        return whiteListProvider.isWhiteList(path);
     }
     @Override
     public int getOrder() {
@@ -0,0 +1,186 @@
+package com.blog.gateway.filters;
+
+import com.blog.common.context.ReactiveUserContext;
+import com.blog.common.ratelimit.TokenBucket;
+import com.blog.gateway.domain.po.RateLimitProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关限流过滤器
+ * <p>
+ * 在JwtFilter之后执行，依次检查：
+ * 1. 当前用户（未登录时按IP）在该路由上的令牌桶，防止单个客户端占满下游；
+ * 2. 该路由在本实例上的总令牌桶；
+ * 3. 开启时，所有网关实例共享的Redis固定窗口配额。
+ * 本地令牌桶都是无锁的，被本地拒绝的请求不会访问Redis。超出限制时返回429并设置Retry-After（秒）。
+ */
+@Slf4j
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+    private static final String GLOBAL_KEY_PREFIX = "gateway:rate-limit:";
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('incr', KEYS[1]) "
+                    + "if count == 1 then redis.call('pexpire', KEYS[1], ARGV[1]) end "
+                    + "return count",
+            Long.class);
+    private static final String RESULT_ALLOWED = "allowed";
+    private static final String RESULT_CLIENT = "rejected_client";
+    private static final String RESULT_ROUTE = "rejected_route";
+    private static final String RESULT_GLOBAL = "rejected_global";
+
+    private final RateLimitProperty property;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    // 路由总令牌桶，不限制的路由保存空值
+    private final Map<String, Optional<TokenBucket>> routeBuckets = new ConcurrentHashMap<>();
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimitProperty property,
+                           ObjectProvider<ReactiveStringRedisTemplate> redisTemplateProvider,
+                           ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.property = property;
+        this.redisTemplate = redisTemplateProvider.getIfAvailable();
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(property.getMaximumClients())
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        if (property.getGlobal().isEnabled() && redisTemplate == null) {
+            log.warn("已开启网关全局限流，但没有可用的ReactiveStringRedisTemplate，全局配额不会生效");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!property.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        return ReactiveUserContext.getUserId()
+                .map(userId -> "user:" + userId)
+                .switchIfEmpty(Mono.fromSupplier(() -> "ip:" + clientIp(exchange)))
+                .flatMap(client -> {
+                    long waitNanos = acquireClient(routeId, client);
+                    if (waitNanos > 0) {
+                        return reject(exchange, routeId, RESULT_CLIENT, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                    }
+                    waitNanos = acquireRoute(routeId);
+                    if (waitNanos > 0) {
+                        return reject(exchange, routeId, RESULT_ROUTE, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                    }
+                    return acquireGlobal(routeId).flatMap(waitMillis -> {
+                        if (waitMillis > 0) {
+                            return reject(exchange, routeId, RESULT_GLOBAL, waitMillis);
+                        }
+                        counter(routeId, RESULT_ALLOWED).increment();
+                        return chain.filter(exchange);
+                    });
+                });
+    }
+
+    private long acquireClient(String routeId, String client) {
+        RateLimitProperty.Bucket config = property.getClientBucket(routeId);
+        if (config.isUnlimited()) {
+            return 0;
+        }
+        return clientBuckets.get(routeId + ":" + client, key -> newBucket(config)).tryAcquireNanos();
+    }
+
+    private long acquireRoute(String routeId) {
+        Optional<TokenBucket> bucket = routeBuckets.computeIfAbsent(routeId, id -> {
+            RateLimitProperty.Bucket config = property.getRouteBucket(id);
+            return config.isUnlimited() ? Optional.empty() : Optional.of(newBucket(config));
+        });
+        return bucket.map(TokenBucket::tryAcquireNanos).orElse(0L);
+    }
+
+    /**
+     * 检查Redis全局配额
+     *
+     * @return 通过时为0，否则为到下一个窗口的毫秒数；Redis不可用时放行
+     */
+    private Mono<Long> acquireGlobal(String routeId) {
+        long limit = property.getGlobalLimit(routeId);
+        if (!property.getGlobal().isEnabled() || redisTemplate == null || limit <= 0) {
+            return Mono.just(0L);
+        }
+        long windowMillis = property.getGlobal().getWindow().toMillis();
+        long now = System.currentTimeMillis();
+        long windowStart = now - now % windowMillis;
+        String key = GLOBAL_KEY_PREFIX + routeId + ":" + windowStart;
+        return redisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(key),
+                        Collections.singletonList(String.valueOf(windowMillis)))
+                .next()
+                .map(count -> count > limit ? Math.max(windowStart + windowMillis - now, 1) : 0L)
+                .onErrorResume(e -> {
+                    log.warn("网关全局限流检查失败，本次放行", e);
+                    return Mono.just(0L);
+                })
+                .defaultIfEmpty(0L);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String routeId, String result, long waitMillis) {
+        counter(routeId, result).increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        // Retry-After只支持整秒，向上取整
+        long retryAfter = Math.max(1, (waitMillis + 999) / 1000);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        return response.setComplete();
+    }
+
+    private Counter counter(String routeId, String result) {
+        return counters.computeIfAbsent(routeId + ":" + result, key -> Counter.builder("gateway.rate-limit.requests")
+                .description("网关限流检查的请求数")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    private static TokenBucket newBucket(RateLimitProperty.Bucket config) {
+        return new TokenBucket(config.getCapacity(), config.getPermitsPerSecond());
+    }
+
+    private static String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getOrder() {
+        // 在JwtFilter之后执行，才能从Reactor Context中拿到用户ID
+        return 1;
+    }
+}
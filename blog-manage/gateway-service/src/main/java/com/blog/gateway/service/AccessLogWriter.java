@@ -0,0 +1,170 @@
+package com.blog.gateway.service;
+
+import com.blog.gateway.domain.po.LogDetail;
+import com.blog.gateway.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志批量写入
+ * <p>
+ * 过滤器只把{@link LogDetail}放入有界无锁环形缓冲区，由一个后台线程批量取出后写入：
+ * 配置了数据源时用多行INSERT写入log_detail表，否则输出到名为ACCESS_LOG的日志。
+ * 缓冲区满时直接丢弃并计数，不会对请求线程产生背压。
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final String INSERT_PREFIX = "INSERT INTO log_detail (ip_address, request_url, request_method, "
+            + "request_params, response_body, request_headers, host_name, mac_address, status_code, cost_time, "
+            + "create_time) VALUES ";
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final MpscRingBuffer<LogDetail> buffer;
+    private final int batchSize;
+    // 缓冲区为空时写入线程的休眠时间，单位是毫秒
+    private final long flushInterval;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private JdbcTemplate jdbcTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    public AccessLogWriter(ObjectProvider<JdbcTemplate> jdbcTemplateProvider,
+                           @Value("${gateway.access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${gateway.access-log.batch-size:200}") int batchSize,
+                           @Value("${gateway.access-log.flush-interval:200}") long flushInterval,
+                           ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.jdbcTemplateProvider = jdbcTemplateProvider;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.droppedCounter = Counter.builder("gateway.access-log.dropped")
+                .description("缓冲区已满被丢弃的访问日志数")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("gateway.access-log.written")
+                .description("已写入的访问日志数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("gateway.access-log.failed")
+                .description("写入失败的访问日志数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.access-log.buffer.size", buffer, MpscRingBuffer::size)
+                .description("缓冲区中等待写入的访问日志数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            log.info("未配置数据源，访问日志输出到ACCESS_LOG日志");
+        }
+        running = true;
+        writer = new Thread(this::run, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 提交一条访问日志，不会阻塞
+     *
+     * @param logDetail 访问日志
+     * @return 缓冲区已满被丢弃时返回 false
+     */
+    public boolean submit(LogDetail logDetail) {
+        if (buffer.offer(logDetail)) {
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    private void run() {
+        List<LogDetail> batch = new ArrayList<>(batchSize);
+        while (running) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushInterval));
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+        // 停止前写完缓冲区中剩余的日志
+        while (buffer.drain(batch::add, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<LogDetail> batch) {
+        try {
+            if (jdbcTemplate != null) {
+                insert(batch);
+            } else {
+                for (LogDetail logDetail : batch) {
+                    ACCESS_LOG.info("{}", logDetail);
+                }
+            }
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.warn("写入访问日志失败，丢弃{}条", batch.size(), e);
+        }
+    }
+
+    private void insert(List<LogDetail> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (INSERT_VALUES.length() + 2))
+                .append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 11];
+        int i = 0;
+        for (LogDetail logDetail : batch) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_VALUES);
+            args[i++] = logDetail.getIpAddress();
+            args[i++] = logDetail.getRequestUrl();
+            args[i++] = logDetail.getRequestMethod();
+            args[i++] = logDetail.getRequestParams();
+            args[i++] = logDetail.getResponseBody();
+            args[i++] = logDetail.getRequestHeaders();
+            args[i++] = logDetail.getHostName();
+            args[i++] = logDetail.getMacAddress();
+            args[i++] = logDetail.getStatusCode();
+            args[i++] = logDetail.getCostTime();
+            args[i++] = logDetail.getCreateTime() == null ? null : Timestamp.valueOf(logDetail.getCreateTime());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
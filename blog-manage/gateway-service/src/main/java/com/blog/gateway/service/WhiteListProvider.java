@@ -0,0 +1,143 @@
+package com.blog.gateway.service;
+
+import com.blog.gateway.domain.po.WhiteListPath;
+import com.blog.gateway.utils.PathPatternTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 白名单提供者
+ * <p>
+ * 从white_list_path表加载白名单路径，编译成不可变的匹配树快照，通过AtomicReference整体替换（写时复制）。
+ * 请求线程只读取当前快照，不加锁、不访问数据库；刷新只在后台线程中进行，
+ * 触发时机是固定的轮询间隔或路由刷新事件（RefreshRoutesEvent）。
+ */
+@Slf4j
+@Component
+public class WhiteListProvider implements ApplicationListener<RefreshRoutesEvent> {
+    private static final String SELECT_PATHS = "SELECT id, path FROM white_list_path";
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    // 内置的白名单路径，始终生效，避免数据库为空时连登录接口都被拦截
+    private final List<String> defaultPaths;
+    // 轮询间隔，单位是秒
+    private final long refreshInterval;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private ScheduledExecutorService scheduler;
+
+    public WhiteListProvider(ObjectProvider<JdbcTemplate> jdbcTemplateProvider,
+                             @Value("${gateway.white-list.defaults:/auth/**}") String[] defaultPaths,
+                             @Value("${gateway.white-list.refresh-interval:30}") long refreshInterval) {
+        this.jdbcTemplateProvider = jdbcTemplateProvider;
+        this.defaultPaths = Arrays.asList(defaultPaths);
+        this.refreshInterval = refreshInterval;
+        this.snapshot.set(new Snapshot(new LinkedHashSet<>(this.defaultPaths)));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (jdbcTemplateProvider.getIfAvailable() == null) {
+            log.info("未配置数据源，白名单只使用默认路径：{}", defaultPaths);
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "white-list-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 判断路径是否在白名单中，只读取当前快照，不会阻塞
+     *
+     * @param path 请求路径
+     * @return 在白名单中返回 true
+     */
+    public boolean isWhiteList(String path) {
+        return snapshot.get().trie.matches(path);
+    }
+
+    /**
+     * 从数据库重新加载白名单，路径集合有变化时才重新编译并替换快照
+     * 无法解析的路径会被跳过并记录警告，加载失败时保留原快照
+     */
+    public void refresh() {
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            return;
+        }
+        try {
+            List<WhiteListPath> rows = jdbcTemplate.query(SELECT_PATHS, (rs, rowNum) -> {
+                WhiteListPath whiteListPath = new WhiteListPath();
+                whiteListPath.setId(rs.getLong("id"));
+                whiteListPath.setPath(rs.getString("path"));
+                return whiteListPath;
+            });
+            Set<String> paths = new LinkedHashSet<>(defaultPaths);
+            for (WhiteListPath row : rows) {
+                if (row.getPath() == null || row.getPath().trim().isEmpty()) {
+                    continue;
+                }
+                String path = row.getPath().trim();
+                // 单条非法模式只跳过该条，不影响其余白名单生效
+                try {
+                    PathPatternTrie.validate(path);
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无法解析的白名单路径，id={}，path={}：{}", row.getId(), path, e.getMessage());
+                    continue;
+                }
+                paths.add(path);
+            }
+            if (!paths.equals(snapshot.get().paths)) {
+                snapshot.set(new Snapshot(paths));
+                log.info("白名单已更新，共{}条", paths.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("加载白名单失败，继续使用当前快照", e);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        if (scheduler != null) {
+            scheduler.execute(this::refresh);
+        }
+    }
+
+    /**
+     * 白名单快照，创建后不再修改
+     */
+    private static final class Snapshot {
+        private final Set<String> paths;
+        private final PathPatternTrie<Boolean> trie;
+
+        private Snapshot(Set<String> paths) {
+            this.paths = paths;
+            this.trie = PathPatternTrie.compile(paths);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.blog.common.exception.TokenException;
 import com.blog.common.exception.UserException;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
 import java.security.Key;
 import java.util.Date;
@@ -17,6 +19,19 @@ public class JwtUtil {
     private static final Long EXPIRATION_TIME = 1000L * 60 * 60 * 3L; // 3 小时
     // 将密钥转换为 Key 对象
     private static final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // 预先构建好的解析器，DefaultJwtParser 不可变且线程安全，所有请求共用一个实例
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+    // 签发和验签耗时，注册到全局注册表，Spring Boot会把应用的注册表加入其中
+    private static final Timer SIGN_TIMER = Timer.builder("gateway.jwt")
+            .description("JWT签发和验签耗时")
+            .tag("operation", "sign")
+            .register(Metrics.globalRegistry);
+    private static final Timer VERIFY_TIMER = Timer.builder("gateway.jwt")
+            .description("JWT签发和验签耗时")
+            .tag("operation", "verify")
+            .register(Metrics.globalRegistry);
 
     /**
      * 生成 JWT
@@ -26,14 +41,14 @@ public class JwtUtil {
      */
     public static String generateToken(Long userId) {
         if (userId == null || userId <= 0) {
-            throw new UserException(ErrorCode.INVALID_USER_ID);
+            throw UserException.of(ErrorCode.INVALID_USER_ID);
         }
-        return Jwts.builder()
+        return SIGN_TIMER.record(() -> Jwts.builder()
                 .setSubject(userId + "")
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME)) // 1 天
                 .signWith(key)
-                .compact();
+                .compact());
     }
 
     /**
@@ -45,25 +60,42 @@ public class JwtUtil {
      */
     public static Claims validateToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return VERIFY_TIMER.record(() -> PARSER.parseClaimsJws(token).getBody());
         } catch (ExpiredJwtException e) {
-            throw new TokenException(ErrorCode.TOKEN_INVALID);
+            throw TokenException.of(ErrorCode.TOKEN_INVALID);
         } catch (MalformedJwtException e) {
-            throw new TokenException(ErrorCode.TOKEN_EXPIRED);
+            throw TokenException.of(ErrorCode.TOKEN_EXPIRED);
         }
     }
 
     public static Long pareToken(String token) {
+        return verifyUserId(token);
+    }
+
+    /**
+     * 验证 JWT 并直接返回用户ID
+     *
+     * @param token JWT 字符串
+     * @return 用户ID
+     * @throws TokenException 如果 JWT 验证失败
+     * @throws UserException 如果 subject 不是合法的用户ID
+     */
+    public static long verifyUserId(String token) {
+        return pareToken(validateToken(token));
+    }
+
+    /**
+     * 从已验证的 Claims 中解析用户ID，避免重复验签
+     *
+     * @param claims 已验证的 Claims 对象
+     * @return 用户ID
+     */
+    public static Long pareToken(Claims claims) {
         try {
-            Claims claims = validateToken(token);
             String userIdStr = claims.getSubject();
             return Long.parseLong(userIdStr);
         } catch (NumberFormatException e) {
-            throw new UserException(ErrorCode.INVALID_USER_ID_FORMAT);
+            throw UserException.of(ErrorCode.INVALID_USER_ID_FORMAT);
         }
     }
 }
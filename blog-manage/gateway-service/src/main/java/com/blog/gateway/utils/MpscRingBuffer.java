@@ -0,0 +1,95 @@
+package com.blog.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形缓冲区，支持多个生产者、单个消费者
+ * <p>
+ * 生产者用CAS领取写入位置后再发布元素，缓冲区满时{@link #offer}直接返回 false，从不阻塞生产者；
+ * 消费者只能有一个线程，按领取顺序取出元素，遇到已领取但尚未发布的位置时本轮停止，下次再取。
+ *
+ * @param <E> 元素类型
+ */
+public class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    // 下一个写入位置，由生产者CAS推进
+    private final AtomicLong producerIndex = new AtomicLong();
+    // 下一个读取位置，只由消费者推进
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity必须在1到2^30之间");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 放入一个元素，可以被多个线程同时调用
+     *
+     * @param element 元素，不能为 null
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= slots.length()) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        slots.lazySet((int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * 取出最多limit个元素，只能由消费者线程调用
+     *
+     * @param consumer 元素处理函数
+     * @param limit    最多取出的元素数
+     * @return 实际取出的元素数
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        long index = consumerIndex.get();
+        int count = 0;
+        while (count < limit) {
+            int offset = (int) index & mask;
+            E element = slots.get(offset);
+            if (element == null) {
+                // 缓冲区为空，或者生产者已领取位置但还没有写入
+                break;
+            }
+            slots.lazySet(offset, null);
+            index++;
+            consumerIndex.lazySet(index);
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return 当前缓冲区中的元素数（近似值）
+     */
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,319 @@
+package com.blog.gateway.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译好的Ant风格路径匹配树
+ * <p>
+ * 按"/"把模式切成段后建成前缀树，每个节点有三类子节点：字面量段、单段通配"*"（以及"*.png"这类段内通配）和多段通配"**"。
+ * 查找时沿路径逐段下行，耗时只和路径长度有关，与模式数量无关，整个查找过程不分配对象。
+ * <p>
+ * 与AntPathMatcher的差异：空段会被忽略（"/auth//login"等价于"/auth/login"），
+ * "{id}"形式的路径变量按"*"处理，不支持带正则的路径变量。
+ * <p>
+ * 实例在compile之后不再修改，可以在多个线程间安全共享。
+ *
+ * @param <V> 模式对应的值，例如白名单用Boolean，路由表用路由ID
+ */
+public final class PathPatternTrie<V> {
+    private static final char SEPARATOR = '/';
+    private static final String DOUBLE_STAR = "**";
+    private static final String STAR = "*";
+
+    private final Node<V> root;
+
+    private PathPatternTrie(Node<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * 把一组模式编译成白名单匹配树
+     *
+     * @param patterns Ant风格的路径模式
+     * @return 匹配树
+     */
+    public static PathPatternTrie<Boolean> compile(Collection<String> patterns) {
+        Map<String, Boolean> table = new LinkedHashMap<>();
+        for (String pattern : patterns) {
+            table.put(pattern, Boolean.TRUE);
+        }
+        return compile(table);
+    }
+
+    /**
+     * 把模式到值的映射编译成匹配树
+     * 同一路径能匹配多个模式时，字面量段优先于"*"，"*"优先于"**"
+     *
+     * @param table 模式到值的映射
+     * @param <V>   值类型
+     * @return 匹配树
+     */
+    public static <V> PathPatternTrie<V> compile(Map<String, V> table) {
+        Node<V> root = new Node<>();
+        for (Map.Entry<String, V> entry : table.entrySet()) {
+            insert(root, entry.getKey(), entry.getValue());
+        }
+        root.freeze();
+        return new PathPatternTrie<>(root);
+    }
+
+    /**
+     * 检查单个模式能否编译，供调用方在编译整张表之前逐条剔除非法模式
+     *
+     * @param pattern Ant风格的路径模式
+     * @throws IllegalArgumentException 模式为空或包含不支持的路径变量
+     */
+    public static void validate(String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("模式不能为空");
+        }
+        for (String segment : pattern.split(String.valueOf(SEPARATOR))) {
+            normalize(segment, pattern);
+        }
+    }
+
+    /**
+     * 判断路径是否能被任意一个模式匹配
+     *
+     * @param path 请求路径
+     * @return 能匹配返回 true
+     */
+    public boolean matches(String path) {
+        return match(path) != null;
+    }
+
+    /**
+     * 查找路径匹配到的模式对应的值
+     *
+     * @param path 请求路径
+     * @return 匹配到的值，没有匹配返回 null
+     */
+    public V match(String path) {
+        if (path == null) {
+            return null;
+        }
+        return match(root, path, skipSeparators(path, 0));
+    }
+
+    private static <V> void insert(Node<V> root, String pattern, V value) {
+        if (pattern == null || value == null) {
+            throw new IllegalArgumentException("模式和值都不能为空");
+        }
+        Node<V> node = root;
+        for (String segment : pattern.split(String.valueOf(SEPARATOR))) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            node = node.child(normalize(segment, pattern));
+        }
+        node.value = value;
+    }
+
+    private static String normalize(String segment, String pattern) {
+        if (segment.indexOf('{') < 0) {
+            return segment;
+        }
+        if (segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+                && segment.indexOf(':') < 0 && segment.indexOf('{', 1) < 0) {
+            return STAR;
+        }
+        throw new IllegalArgumentException("不支持的路径变量：" + pattern);
+    }
+
+    /**
+     * 从pos开始匹配剩余的路径，pos总是指向一个段的开头或路径末尾
+     */
+    private static <V> V match(Node<V> node, String path, int pos) {
+        int length = path.length();
+        if (pos >= length) {
+            return matchEnd(node);
+        }
+        int end = path.indexOf(SEPARATOR, pos);
+        if (end < 0) {
+            end = length;
+        }
+        int next = skipSeparators(path, end);
+        V result;
+
+        Node<V> literal = node.literal(path, pos, end);
+        if (literal != null && (result = match(literal, path, next)) != null) {
+            return result;
+        }
+        for (int i = 0; i < node.globs.length; i++) {
+            if (globMatches(node.globs[i], path, pos, end)
+                    && (result = match(node.globNodes[i], path, next)) != null) {
+                return result;
+            }
+        }
+        if (node.star != null && (result = match(node.star, path, next)) != null) {
+            return result;
+        }
+        if (node.doubleStar != null) {
+            // "**"可以吞掉零个或多个段，依次尝试从每个段的开头继续匹配
+            int cursor = pos;
+            while (true) {
+                if ((result = match(node.doubleStar, path, cursor)) != null) {
+                    return result;
+                }
+                if (cursor >= length) {
+                    return null;
+                }
+                int segmentEnd = path.indexOf(SEPARATOR, cursor);
+                cursor = segmentEnd < 0 ? length : skipSeparators(path, segmentEnd);
+            }
+        }
+        return null;
+    }
+
+    private static <V> V matchEnd(Node<V> node) {
+        // 路径已经结束，末尾的"**"可以匹配零个段
+        while (node != null) {
+            if (node.value != null) {
+                return node.value;
+            }
+            node = node.doubleStar;
+        }
+        return null;
+    }
+
+    private static int skipSeparators(String path, int pos) {
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == SEPARATOR) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * 段内通配匹配，"*"匹配任意个字符，"?"匹配一个字符
+     */
+    private static boolean globMatches(String glob, String path, int start, int end) {
+        int g = 0;
+        int p = start;
+        int starGlob = -1;
+        int starPath = -1;
+        int globLength = glob.length();
+        while (p < end) {
+            if (g < globLength) {
+                char c = glob.charAt(g);
+                if (c == '*') {
+                    starGlob = g++;
+                    starPath = p;
+                    continue;
+                }
+                if (c == '?' || c == path.charAt(p)) {
+                    g++;
+                    p++;
+                    continue;
+                }
+            }
+            if (starGlob < 0) {
+                return false;
+            }
+            g = starGlob + 1;
+            p = ++starPath;
+        }
+        while (g < globLength && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == globLength;
+    }
+
+    /**
+     * 树节点，构建时用HashMap收集字面量子节点，freeze后转成按区间哈希查找的开放寻址表
+     */
+    private static final class Node<V> {
+        private Map<String, Node<V>> building = new HashMap<>();
+        private List<String> buildingGlobs = new ArrayList<>();
+        private List<Node<V>> buildingGlobNodes = new ArrayList<>();
+
+        private String[] keys;
+        private Node<V>[] children;
+        private int mask;
+        private String[] globs;
+        private Node<V>[] globNodes;
+        private Node<V> star;
+        private Node<V> doubleStar;
+        private V value;
+
+        Node<V> child(String segment) {
+            if (DOUBLE_STAR.equals(segment)) {
+                if (doubleStar == null) {
+                    doubleStar = new Node<>();
+                }
+                return doubleStar;
+            }
+            if (STAR.equals(segment)) {
+                if (star == null) {
+                    star = new Node<>();
+                }
+                return star;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                int index = buildingGlobs.indexOf(segment);
+                if (index >= 0) {
+                    return buildingGlobNodes.get(index);
+                }
+                Node<V> node = new Node<>();
+                buildingGlobs.add(segment);
+                buildingGlobNodes.add(node);
+                return node;
+            }
+            return building.computeIfAbsent(segment, k -> new Node<>());
+        }
+
+        @SuppressWarnings("unchecked")
+        void freeze() {
+            int capacity = Integer.highestOneBit(Math.max(building.size(), 1) * 2 + 1) << 1;
+            keys = new String[capacity];
+            children = new Node[capacity];
+            mask = capacity - 1;
+            for (Map.Entry<String, Node<V>> entry : building.entrySet()) {
+                int slot = entry.getKey().hashCode() & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = entry.getKey();
+                children[slot] = entry.getValue();
+                entry.getValue().freeze();
+            }
+            globs = buildingGlobs.toArray(new String[0]);
+            globNodes = buildingGlobNodes.toArray(new Node[0]);
+            for (Node<V> node : globNodes) {
+                node.freeze();
+            }
+            if (star != null) {
+                star.freeze();
+            }
+            if (doubleStar != null) {
+                doubleStar.freeze();
+            }
+            building = null;
+            buildingGlobs = null;
+            buildingGlobNodes = null;
+        }
+
+        Node<V> literal(String path, int start, int end) {
+            // 与String.hashCode相同的算法，直接在路径的区间上计算，避免截取子串
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int length = end - start;
+            int slot = hash & mask;
+            String key;
+            while ((key = keys[slot]) != null) {
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return children[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.blog.gateway.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证令牌缓存
+ * <p>
+ * 以令牌的SHA-256摘要为键，缓存验签通过的用户ID，条目在令牌的exp时刻失效。
+ * 同一会话的多次请求携带同一个令牌，命中缓存时只需一次哈希查找，不再做HMAC验签和JSON解析。
+ */
+@Component
+public class TokenCache {
+    // 每个线程复用一个摘要实例，MessageDigest本身不是线程安全的
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    });
+
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    public TokenCache(@Value("${jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
+    /**
+     * 解析令牌中的用户ID，优先从缓存读取
+     *
+     * @param token JWT 字符串
+     * @return 用户ID
+     * @throws com.blog.common.exception.TokenException 如果令牌验证失败
+     */
+    public Long resolveUserId(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken verified = cache.getIfPresent(digest);
+        if (verified != null) {
+            return verified.userId;
+        }
+        // 未命中时只验签一次，同时取出subject和过期时间
+        Claims claims = JwtUtil.validateToken(token);
+        Long userId = JwtUtil.pareToken(claims);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            cache.put(digest, new VerifiedToken(userId, expiration.getTime()));
+        }
+        return userId;
+    }
+
+    /**
+     * 令牌摘要，取SHA-256的前128位作为缓存键
+     */
+    private static final class TokenDigest {
+        private final long high;
+        private final long low;
+
+        private TokenDigest(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        static TokenDigest of(String token) {
+            byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+            return new TokenDigest(toLong(hash, 0), toLong(hash, 8));
+        }
+
+        private static long toLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                value = (value << 8) | (bytes[i] & 0xFF);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TokenDigest)) {
+                return false;
+            }
+            TokenDigest that = (TokenDigest) o;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
+
+    /**
+     * 缓存的验签结果
+     */
+    private static final class VerifiedToken {
+        private final Long userId;
+        // 令牌过期时间，单位是毫秒
+        private final long expiresAt;
+
+        private VerifiedToken(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 按令牌自身的exp计算条目存活时间
+     */
+    private static final class TokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            long remaining = value.expiresAt - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- 网关白名单路径，由 WhiteListProvider 在后台定时加载
+CREATE TABLE IF NOT EXISTS white_list_path
+(
+    id   BIGINT       NOT NULL AUTO_INCREMENT COMMENT '主键',
+    path VARCHAR(255) NOT NULL COMMENT 'Ant风格的白名单路径，例如 /auth/**',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_path (path)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='网关白名单路径';
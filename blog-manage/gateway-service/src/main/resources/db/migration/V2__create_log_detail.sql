@@ -0,0 +1,19 @@
+-- 网关访问日志，由 AccessLogWriter 在后台批量写入
+CREATE TABLE IF NOT EXISTS log_detail
+(
+    id              BIGINT        NOT NULL AUTO_INCREMENT COMMENT '主键',
+    ip_address      VARCHAR(64)   NULL COMMENT '请求ip地址',
+    request_url     VARCHAR(1024) NULL COMMENT '请求url地址',
+    request_method  VARCHAR(16)   NULL COMMENT '请求方法',
+    request_params  TEXT          NULL COMMENT '请求参数',
+    response_body   TEXT          NULL COMMENT '响应结果，超过上限的部分会被截断',
+    request_headers TEXT          NULL COMMENT '请求头，不包含认证信息',
+    host_name       VARCHAR(255)  NULL COMMENT '网关主机名',
+    mac_address     VARCHAR(64)   NULL COMMENT '网关mac地址',
+    status_code     INT           NULL COMMENT '响应状态码',
+    cost_time       BIGINT        NULL COMMENT '耗时（毫秒）',
+    create_time     DATETIME      NOT NULL COMMENT '创建时间',
+    PRIMARY KEY (id),
+    KEY idx_create_time (create_time)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='网关访问日志';
@@ -3,7 +3,8 @@ package com.blog.gateway;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// 用户上下文签名密钥没有默认值，测试使用固定的测试密钥
+@SpringBootTest(properties = "blog.user-context.secret=test-only-user-context-secret")
 class GatewayServiceApplicationTests {
 
     @Test
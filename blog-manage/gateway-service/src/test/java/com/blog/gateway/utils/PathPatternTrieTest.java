@@ -0,0 +1,76 @@
+package com.blog.gateway.utils;
+
+import cn.hutool.core.text.AntPathMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathPatternTrieTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/auth/**",
+            "/articles/*/comments",
+            "/static/**/*.png",
+            "/users/{id}",
+            "/files/report-?.pdf",
+            "/a/**/b/**/c"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/", "/auth", "/auth/", "/auth/login", "/auth/captcha/x",
+            "/articles", "/articles/1/comments", "/articles/1/2/comments", "/articles/1/comments/3",
+            "/static/logo.png", "/static/img/a/logo.png", "/static/img/logo.jpg",
+            "/users/42", "/users/42/profile", "/users",
+            "/files/report-1.pdf", "/files/report-12.pdf",
+            "/a/b/c", "/a/x/b/y/c", "/a/x/y/b/c/c", "/a/b/x"
+    );
+
+    @Test
+    void agreesWithAntPathMatcher() {
+        PathPatternTrie<Boolean> trie = PathPatternTrie.compile(PATTERNS);
+        AntPathMatcher matcher = new AntPathMatcher();
+        for (String path : PATHS) {
+            boolean expected = PATTERNS.stream().anyMatch(pattern -> matcher.match(pattern, path));
+            assertEquals(expected, trie.matches(path), path);
+        }
+    }
+
+    @Test
+    void prefersMostSpecificPattern() {
+        Map<String, String> routes = new LinkedHashMap<>();
+        routes.put("/articles/**", "article-service");
+        routes.put("/articles/*/comments", "comment-service");
+        routes.put("/articles/hot/comments", "hot-service");
+        PathPatternTrie<String> trie = PathPatternTrie.compile(routes);
+
+        assertEquals("hot-service", trie.match("/articles/hot/comments"));
+        assertEquals("comment-service", trie.match("/articles/1/comments"));
+        assertEquals("article-service", trie.match("/articles/1"));
+        assertNull(trie.match("/users/1"));
+    }
+
+    @Test
+    void ignoresEmptySegments() {
+        PathPatternTrie<Boolean> trie = PathPatternTrie.compile(Collections.singletonList("/auth/login"));
+        assertTrue(trie.matches("//auth//login/"));
+        assertFalse(trie.matches("/auth/logout"));
+    }
+
+    @Test
+    void rejectsRegexVariables() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PathPatternTrie.compile(Collections.singletonList("/users/{id:\\d+}")));
+        assertThrows(IllegalArgumentException.class, () -> PathPatternTrie.validate("/users/{id:\\d+}"));
+        PathPatternTrie.validate("/users/{id}/**");
+    }
+}